@@ -0,0 +1,46 @@
+package com.moandjiezana.toml;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time of {@link TomlParser#run(String)} on the {@link AdversarialInputs}, at two sizes 16 times apart.
+ * A linear parser takes about 16 times longer on the larger size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class AdversarialBenchmark {
+
+  @Param({ "backslashes", "deepHeader", "hugeInlineTable", "longKeys", "deepTableArrays" })
+  String kind;
+
+  @Param({ "65536", "1048576" })
+  int size;
+
+  String toml;
+
+  @Setup
+  public void createInput() {
+    toml = AdversarialInputs.generate(kind, size);
+  }
+
+  @Benchmark
+  public Results parse() {
+    return TomlParser.run(toml);
+  }
+}
@@ -0,0 +1,132 @@
+package com.moandjiezana.toml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Builds benchmark input from the test resources.
+ */
+class Benchmarks {
+
+  static byte[] resource(String name) throws IOException {
+    try (InputStream in = Benchmarks.class.getResourceAsStream(name)) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+
+  /**
+   * @param name a resource that stays valid TOML when repeated, e.g. one made only of table arrays
+   */
+  static byte[] scaled(String name, int size) throws IOException {
+    byte[] unit = resource(name);
+    ByteArrayOutputStream out = new ByteArrayOutputStream(size + unit.length + 1);
+    while (out.size() < size) {
+      out.write(unit);
+      out.write('\n');
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Distinct tables with one key of each value type, plus comments, until the document is at least size chars long.
+   */
+  static String keyValues(int size) {
+    StringBuilder sb = new StringBuilder(size + 512);
+    for (int i = 0; sb.length() < size; i++) {
+      sb.append("# table ").append(i).append('\n')
+        .append("[table_").append(i).append("]\n")
+        .append("string_key = \"value ").append(i).append("\" # right comment\n")
+        .append("literal_key = 'C:\\Users\\").append(i).append("'\n")
+        .append("int_key = ").append(i).append('\n')
+        .append("float_key = ").append(i).append(".5\n")
+        .append("bool_key = true\n")
+        .append("date_key = 1979-05-27T07:32:00Z\n")
+        .append("array_key = [ 1, 2, 3 ]\n")
+        .append("inline_key = { a = 1, b = \"x\" }\n");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Tables of integers and floats only, like thresholds, weights and port maps, until the document is at least size chars long.
+   */
+  static String numbers(int size) {
+    StringBuilder sb = new StringBuilder(size + 512);
+    for (int i = 0; sb.length() < size; i++) {
+      sb.append("[limits_").append(i).append("]\n")
+        .append("port = ").append(8000 + i % 1000).append('\n')
+        .append("max_connections = 1_000_000\n")
+        .append("timeout_ns = ").append(1234567890123L + i).append('\n')
+        .append("weight = 0.").append(i % 997).append("25\n")
+        .append("threshold = -1.5e-3\n")
+        .append("ratios = [ 0.25, 0.5, 0.75, 1.0 ]\n");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Many short key/value lines under dotted table headers, with inline tables, until the document is at least size chars long.
+   */
+  static String keys(int size) {
+    StringBuilder sb = new StringBuilder(size + 512);
+    for (int i = 0; sb.length() < size; i++) {
+      sb.append("[service.endpoint_").append(i).append(".limits]\n")
+        .append("a = 1\n")
+        .append("max-retries = 3\n")
+        .append("enabled_flag = true\n")
+        .append("\"quoted key\" = 2\n")
+        .append("point = { x = 1, y = 2, z-index = 3 }\n");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Every line of a resource turned into a comment, like a disabled block of configuration,
+   * each copy followed by a small table, until the document is at least size bytes long.
+   */
+  static byte[] commentedOut(String name, int size) throws IOException {
+    String[] lines = new String(resource(name), "UTF-8").split("\n");
+    StringBuilder sb = new StringBuilder(size + 512);
+    for (int i = 0; sb.length() < size; i++) {
+      for (String line : lines) {
+        sb.append("# ").append(line).append('\n');
+      }
+      sb.append("[enabled_").append(i).append("]\n")
+        .append("on = true\n");
+    }
+    return sb.toString().getBytes("UTF-8");
+  }
+
+  /**
+   * Resources made only of top-level keys, each copy under a table of its own, until the document is at least size bytes long.
+   */
+  static byte[] tables(int size, String... names) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(size + 512);
+    for (int i = 0; out.size() < size; i++) {
+      for (String name : names) {
+        out.write(("\n[" + name.replace('.', '_') + "_" + i + "]\n").getBytes("UTF-8"));
+        out.write(resource(name));
+      }
+    }
+    return out.toByteArray();
+  }
+
+  static Path scaledResource(String name, int size) throws IOException {
+    Path path = Files.createTempFile("toml4j-benchmark", ".toml");
+    try (OutputStream out = Files.newOutputStream(path)) {
+      out.write(scaled(name, size));
+    }
+    return path;
+  }
+
+  private Benchmarks() {}
+}
@@ -0,0 +1,64 @@
+package com.moandjiezana.toml;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link TomlParser#run(String)} per input char, on corpora of {@link #SIZE} chars.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@OperationsPerInvocation(ParseBenchmark.SIZE)
+public class ParseBenchmark {
+
+  static final int SIZE = 1 << 20;
+
+  String keyValues;
+  String tableArrays;
+  String numbers;
+  String keys;
+
+  @Setup
+  public void createCorpora() throws IOException {
+    keyValues = Benchmarks.keyValues(SIZE);
+    tableArrays = new String(Benchmarks.scaled("products_table_array.toml", SIZE), "UTF-8");
+    numbers = Benchmarks.numbers(SIZE);
+    keys = Benchmarks.keys(SIZE);
+  }
+
+  @Benchmark
+  public Results keyValues() {
+    return TomlParser.run(keyValues);
+  }
+
+  @Benchmark
+  public Results tableArrays() {
+    return TomlParser.run(tableArrays);
+  }
+
+  @Benchmark
+  public Results numbers() {
+    return TomlParser.run(numbers);
+  }
+
+  @Benchmark
+  public Results keys() {
+    return TomlParser.run(keys);
+  }
+}
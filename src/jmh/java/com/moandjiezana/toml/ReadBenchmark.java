@@ -0,0 +1,60 @@
+package com.moandjiezana.toml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link Toml#read(File)} with the memory-mapped {@link Toml#read(Path)} on products_table_array.toml
+ * repeated until the file reaches the requested size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class ReadBenchmark {
+
+  @Param({ "1", "16" })
+  int megabytes;
+
+  Path path;
+
+  @Setup(Level.Trial)
+  public void createFile() throws IOException {
+    path = Benchmarks.scaledResource("products_table_array.toml", megabytes * 1024 * 1024);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteFile() throws IOException {
+    Files.delete(path);
+  }
+
+  @Benchmark
+  public Map<String, Object> readFile() {
+    return new Toml().read(path.toFile()).toMap();
+  }
+
+  @Benchmark
+  public Map<String, Object> readPath() {
+    return new Toml().read(path).toMap();
+  }
+}
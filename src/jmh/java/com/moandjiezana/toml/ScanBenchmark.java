@@ -0,0 +1,55 @@
+package com.moandjiezana.toml;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost per input byte of parsing UTF-8 input whose characters are mostly inside comments or strings,
+ * where the parser skips ahead 8 bytes at a time, on corpora of {@link ParseBenchmark#SIZE} bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+@OperationsPerInvocation(ParseBenchmark.SIZE)
+public class ScanBenchmark {
+
+  byte[] comments;
+  byte[] strings;
+
+  @Setup
+  public void createCorpora() throws IOException {
+    comments = Benchmarks.commentedOut("example-v0.4.0.toml", ParseBenchmark.SIZE);
+    strings = Benchmarks.tables(ParseBenchmark.SIZE, "should_get_literal_string.toml", "should_get_basic_multiline_string.toml", "should_get_multiline_literal_string.toml");
+  }
+
+  @Benchmark
+  public Results comments() {
+    return TomlParser.run(TomlInput.utf8(ByteBuffer.wrap(comments)), ParseOptions.DEFAULT.keepComments(false));
+  }
+
+  @Benchmark
+  public Results commentsKept() {
+    return TomlParser.run(TomlInput.utf8(ByteBuffer.wrap(comments)));
+  }
+
+  @Benchmark
+  public Results strings() {
+    return TomlParser.run(TomlInput.utf8(ByteBuffer.wrap(strings)));
+  }
+}
@@ -20,8 +20,8 @@ abstract class ArrayValueWriter implements ValueWriter {
   static boolean isArrayOfPrimitive(Object array) {
     Object first = peek(array);
     if (first != null) {
-      ValueWriter valueWriter = WRITERS.findWriterFor(first);
-      return valueWriter.isPrimitiveType() || isArrayish(first);
+      // 先检查嵌套的数组, findWriterFor 会对它递归
+      return isArrayish(first) || WRITERS.findWriterFor(first).isPrimitiveType();
     }
 
     return true;
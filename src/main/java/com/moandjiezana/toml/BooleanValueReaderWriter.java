@@ -1,6 +1,5 @@
 package com.moandjiezana.toml;
 
-import java.util.concurrent.atomic.AtomicInteger;
 
 
 class BooleanValueReaderWriter implements ValueReader, ValueWriter {
@@ -8,18 +7,18 @@ class BooleanValueReaderWriter implements ValueReader, ValueWriter {
   static final BooleanValueReaderWriter BOOLEAN_VALUE_READER_WRITER = new BooleanValueReaderWriter(); 
 
   @Override
-  public boolean canRead(String s,int readStartIndex) {
+  public boolean canRead(TomlInput s,int readStartIndex) {
     return s.startsWith("true",readStartIndex) || s.startsWith("false",readStartIndex);
   }
 
   @Override
-  public Object read(String s, AtomicInteger index, Context context) {
+  public Object read(TomlInput s, Cursor index, Context context) {
     int readStartIndex = index.get();
     Boolean b = s.startsWith("true",readStartIndex) ? Boolean.TRUE : Boolean.FALSE;
     
     int endIndex = b == Boolean.TRUE ? 4 : 5;
     
-    index.addAndGet(endIndex - 1);
+    index.advance(endIndex - 1);
     
     return b;
   }
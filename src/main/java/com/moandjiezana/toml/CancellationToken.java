@@ -0,0 +1,70 @@
+package com.moandjiezana.toml;
+
+import java.util.concurrent.TimeUnit;
+
+import com.moandjiezana.toml.exception.TomlCancelledException;
+
+/**
+ * <p>Stops a parse that takes too long. A token is cancelled when {@link #cancel()} is called, from any thread,
+ * or when its deadline has passed.</p>
+ *
+ * <p>The parser checks the token every few thousand characters, so a cancelled read throws a
+ * {@link TomlCancelledException} shortly afterwards. Nothing read before that is kept.</p>
+ *
+ * <pre><code>
+ * CancellationToken token = CancellationToken.withDeadline(200, TimeUnit.MILLISECONDS);
+ * Toml toml = new Toml().cancellation(token).read(reader);
+ * </code></pre>
+ */
+public final class CancellationToken {
+
+  private final long deadline;
+  private final boolean hasDeadline;
+  private volatile boolean cancelled;
+
+  /**
+   * @param timeout how long the token may be used before it is cancelled, measured from now
+   * @param unit the unit of timeout
+   * @return a token that is cancelled after timeout, or earlier by {@link #cancel()}
+   */
+  public static CancellationToken withDeadline(long timeout, TimeUnit unit) {
+    return new CancellationToken(System.nanoTime() + unit.toNanos(timeout), true);
+  }
+
+  /**
+   * Creates a token without a deadline, only cancelled by {@link #cancel()}.
+   */
+  public CancellationToken() {
+    this(0, false);
+  }
+
+  private CancellationToken(long deadline, boolean hasDeadline) {
+    this.deadline = deadline;
+    this.hasDeadline = hasDeadline;
+  }
+
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled || isExpired();
+  }
+
+  private boolean isExpired() {
+    // nanoTime 可能溢出, 只比较差值
+    return hasDeadline && System.nanoTime() - deadline >= 0;
+  }
+
+  /**
+   * @param line 当前解析到的行, 报告在异常中
+   */
+  void check(int line) {
+    if (cancelled) {
+      throw new TomlCancelledException("Parsing was cancelled on line " + line, line, false);
+    }
+    if (isExpired()) {
+      throw new TomlCancelledException("Parsing exceeded its deadline on line " + line, line, true);
+    }
+  }
+}
@@ -0,0 +1,261 @@
+package com.moandjiezana.toml;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * 大文档在行首的 [table] 和 [[table array]] 处切开, 在调用者给的 {@link ParseOptions#executor} 中并行解析每一段
+ *
+ * 每一段只记录对 Results 的操作, 最后按文档顺序在同一个 Results 上重放,
+ * 所以重复的 table, 重复的 key 和隐式 table 的检查和顺序解析完全一样
+ */
+final class ChunkedParser {
+
+  // 只用来决定切成多少段, 线程由 executor 决定
+  static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+  // 小于这个长度的文档顺序解析更快
+  static final int MIN_CHUNK_LENGTH = 1 << 20;
+
+  static boolean shouldSplit(TomlInput input) {
+    return !input.isStreaming() && input.length() >= 2 * MIN_CHUNK_LENGTH;
+  }
+
+  /**
+   * @param minChunkLength 每一段的最小长度, 每个线程大约分到 4 段
+   * @param options options.executor 不能是 null
+   */
+  static Results run(TomlInput input, int parallelism, int minChunkLength, final ParseOptions options) {
+    int length = input.length();
+    List<Chunk> chunks = split(input, Math.max(minChunkLength, length / (parallelism * 4)));
+    if (chunks.size() == 1) {
+      return TomlParser.run(input, new Cursor(), new Results(), options);
+    }
+
+    List<Callable<RecordingResults>> tasks = new ArrayList<Callable<RecordingResults>>(chunks.size());
+    for (final Chunk chunk : chunks) {
+      final TomlInput slice = input.slice(chunk.start, chunk.end);
+      tasks.add(new Callable<RecordingResults>() {
+        @Override
+        public RecordingResults call() {
+          RecordingResults recording = new RecordingResults();
+          TomlParser.run(slice, new Cursor(0, chunk.line), recording, options);
+          recording.finish(slice, options.keepComments);
+          return recording;
+        }
+      });
+    }
+
+    List<RecordingResults> recordings = new ArrayList<RecordingResults>(chunks.size());
+    try {
+      for (Future<RecordingResults> future : options.executor.invokeAll(tasks)) {
+        RecordingResults recording = future.get();
+        if (recording.errors.hasErrors()) {
+          // 切分的边界可能在错误的地方, 按顺序解析才能得到和以前一样的错误
+          return TomlParser.run(input, new Cursor(), new Results(), options);
+        }
+        recordings.add(recording);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+
+    Results results = new Results();
+    results.limits = options.limits;
+    String beforeComment = null;
+    for (RecordingResults recording : recordings) {
+      if (!recording.replay(results, beforeComment)) {
+        break;
+      }
+      beforeComment = recording.tail;
+    }
+    return results;
+  }
+
+  /**
+   * 找出不在多行字符串, 数组和内联表中的行首 [ , 间隔至少 chunkLength 的时候切开
+   */
+  static List<Chunk> split(TomlInput s, int chunkLength) {
+    List<Chunk> chunks = new ArrayList<Chunk>();
+    int chunkStart = 0;
+    int chunkLine = 1;
+    int line = 1;
+    int depth = 0;
+    boolean lineStart = true;
+    int length = s.length();
+    for (int i = 0; i < length; i++) {
+      char c = s.charAt(i);
+      if (c == '\n') {
+        line++;
+        lineStart = true;
+        continue;
+      }
+      if (c == ' ' || c == '\t' || c == '\r') {
+        continue;
+      }
+      if (lineStart && depth == 0 && c == '[') {
+        if (i - chunkStart >= chunkLength) {
+          chunks.add(new Chunk(chunkStart, i, chunkLine));
+          chunkStart = i;
+          chunkLine = line;
+        }
+        // 跳过 table 的名字, 它可能包含 [ ] 或者引号
+        i = skipLine(s, i, length) - 1;
+        continue;
+      }
+      lineStart = false;
+      if (c == '#') {
+        i = skipLine(s, i, length) - 1;
+      } else if (c == '"' || c == '\'') {
+        int end = skipString(s, i, length);
+        for (int j = i; j < end; j++) {
+          if (s.charAt(j) == '\n') {
+            line++;
+          }
+        }
+        i = end - 1;
+      } else if (c == '[' || c == '{') {
+        depth++;
+      } else if ((c == ']' || c == '}') && depth > 0) {
+        depth--;
+      }
+    }
+    chunks.add(new Chunk(chunkStart, length, chunkLine));
+    return chunks;
+  }
+
+  /**
+   * @return 换行符的索引, 换行符本身不跳过
+   */
+  private static int skipLine(TomlInput s, int i, int length) {
+    while (i < length && s.charAt(i) != '\n') {
+      char c = s.charAt(i);
+      if (c == '#') {
+        return s.indexOfAny('\n', '\n', '\n', i, length);
+      }
+      i = c == '"' || c == '\'' ? skipString(s, i, length) : i + 1;
+    }
+    return i;
+  }
+
+  /**
+   * @return 字符串结束之后的索引, 单行字符串最多到换行符为止
+   */
+  private static int skipString(TomlInput s, int i, int length) {
+    char quote = s.charAt(i);
+    boolean multiline = i + 2 < length && s.charAt(i + 1) == quote && s.charAt(i + 2) == quote;
+    i += multiline ? 3 : 1;
+    while (i < length) {
+      i = s.indexOfAny(quote, '\\', '\n', i, length);
+      if (i == length) {
+        break;
+      }
+      char c = s.charAt(i);
+      if (c == '\\' && quote == '"') {
+        i += 2;
+        continue;
+      }
+      if (c == '\n' && !multiline) {
+        return i;
+      }
+      if (c == quote) {
+        if (!multiline) {
+          return i + 1;
+        }
+        if (i + 2 < length && s.charAt(i + 1) == quote && s.charAt(i + 2) == quote) {
+          return i + 3;
+        }
+      }
+      i++;
+    }
+    return length;
+  }
+
+  static final class Chunk {
+    final int start;
+    final int end;
+    // start 所在的行号
+    final int line;
+
+    Chunk(int start, int end, int line) {
+      this.start = start;
+      this.end = end;
+      this.line = line;
+    }
+  }
+
+  /**
+   * 不构建 table, 只按顺序记录 TomlParser 调用的操作
+   */
+  private static final class RecordingResults extends Results {
+    private static final int TABLES = 0;
+    private static final int TABLE_ARRAY = 1;
+    private static final int VALUE = 2;
+
+    private final List<Object[]> operations = new ArrayList<Object[]>();
+    // 最后一个值之后的注释和空白, 顺序解析时它们是下一段第一个 table 上面的注释
+    private String tail;
+
+    @Override
+    void startTables(Identifier id, int line) {
+      operations.add(new Object[] { TABLES, id, null, null, line });
+    }
+
+    @Override
+    void startTableArray(Identifier identifier, int line) {
+      operations.add(new Object[] { TABLE_ARRAY, identifier, null, null, line });
+    }
+
+    @Override
+    void addValue(Identifier identifier, String key, Object value, int line) {
+      operations.add(new Object[] { VALUE, identifier, key, value, line });
+    }
+
+    void finish(TomlInput slice, boolean keepComments) {
+      tail = getLastComment();
+      if (operations.isEmpty() && !slice.isEmpty() && keepComments) {
+        tail = slice.substring(0);
+      }
+    }
+
+    /**
+     * @param beforeComment 上一段的 tail
+     * @return false 出现了错误, 后面的段不需要再重放
+     */
+    boolean replay(Results results, String beforeComment) {
+      for (int i = 0; i < operations.size(); i++) {
+        Object[] operation = operations.get(i);
+        Identifier identifier = (Identifier) operation[1];
+        int line = (Integer) operation[4];
+        if (i == 0 && identifier != null && identifier.getBeforeComment() == null) {
+          identifier.setBeforeComment(beforeComment);
+        }
+        switch ((Integer) operation[0]) {
+          case TABLES:
+            results.startTables(identifier, line);
+            break;
+          case TABLE_ARRAY:
+            results.startTableArray(identifier, line);
+            break;
+          default:
+            results.addValue(identifier, (String) operation[2], operation[3], line);
+        }
+        if (results.errors.hasErrors()) {
+          return false;
+        }
+      }
+      results.setLastComment(getLastComment());
+      return true;
+    }
+  }
+
+  private ChunkedParser() {}
+}
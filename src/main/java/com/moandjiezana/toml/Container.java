@@ -20,12 +20,13 @@ abstract class Container {
       }
 
       public Map<String, ContainerComment> getCommentMap() {
-          return commentMap;
+          return commentMap == null ? Collections.<String, ContainerComment>emptyMap() : commentMap;
       }
 
       //Object 可能为  Table TableArray String Date double boolean Map<String,Object> 以及 toml支持的数组结构
       private  Map<String, Object> values = new LinkedHashMap<String, Object>();
-    private final Map<String, ContainerComment> commentMap = new LinkedHashMap<String, ContainerComment>();
+    // 第一个有注释的值才创建, 不保留注释的时候一直是 null
+    private Map<String, ContainerComment> commentMap;
     final String name;
     final boolean implicit;
 
@@ -70,7 +71,12 @@ abstract class Container {
             }
         } else {
             values.put(key, value);
-            commentMap.put(key, new ContainerComment(beforeComment, rightComment));
+            if (beforeComment != null || rightComment != null) {
+                if (commentMap == null) {
+                    commentMap = new LinkedHashMap<String, ContainerComment>();
+                }
+                commentMap.put(key, new ContainerComment(beforeComment, rightComment));
+            }
         }
     }
 
@@ -90,7 +96,7 @@ abstract class Container {
                   TableArray tableArray = (TableArray) value;
                   map.put(key,tableArray.getValueList());
               } else {
-                  map.put(key, value);
+                  map.put(key, LazyValue.resolve(value));
               }
           }
           return map;
@@ -157,7 +163,7 @@ abstract class Container {
 
     @Override
     Object get(String key) {
-      return values.get(key);
+      return LazyValue.resolve(values.get(key));
     }
     
     boolean isImplicit() {
@@ -177,6 +183,8 @@ abstract class Container {
           entry.setValue(((Container.Table) entry.getValue()).consume());
         } else if (entry.getValue() instanceof Container.TableArray) {
           entry.setValue(((Container.TableArray) entry.getValue()).getValues());
+        } else {
+          entry.setValue(LazyValue.resolve(entry.getValue()));
         }
       }
 
@@ -212,7 +220,7 @@ abstract class Container {
       }
       TableArray(String beforeComment,String rightComment) {
       values.add(new Container.Table());
-          comments.add(new ContainerComment(beforeComment, rightComment));
+          comments.add(ContainerComment.of(beforeComment, rightComment));
     }
 
         public List<Map<String,Object>> getValueList(){
@@ -231,12 +239,12 @@ abstract class Container {
     @Override
     void put(String key, Object value,String beforeComment,String rightComment) {
       values.add((Container.Table) value);
-      comments.add(new ContainerComment(beforeComment, rightComment));
+      comments.add(ContainerComment.of(beforeComment, rightComment));
     }
 
     void addTable(Table table,String beforeComment,String rightComment) {
         values.add(table);
-        comments.add(new ContainerComment(beforeComment, rightComment));
+        comments.add(ContainerComment.of(beforeComment, rightComment));
     }
 
     @Override
@@ -276,6 +284,16 @@ abstract class Container {
 
 class ContainerComment {
     static ContainerComment EMPTY_CONTAINER_COMMENT = new ContainerComment(null,null);
+
+    /**
+     * 没有注释的时候共用 EMPTY_CONTAINER_COMMENT
+     */
+    static ContainerComment of(String beforeComment, String rightComment) {
+        if (beforeComment == null && rightComment == null) {
+            return EMPTY_CONTAINER_COMMENT;
+        }
+        return new ContainerComment(beforeComment, rightComment);
+    }
     private String beforeComment;
     private String rightComment;
 
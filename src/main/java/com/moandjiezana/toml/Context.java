@@ -1,19 +1,55 @@
 package com.moandjiezana.toml;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
+/**
+ * 一次解析中共用的一个对象, identifier 随着当前读取的 key 变化
+ */
 class Context {
-  final Identifier identifier;
-  final AtomicInteger line;
+  // 2 的幂, 检查 deadline 要读时钟, 不能每个字符都检查
+  private static final int CHECK_INTERVAL = 4096;
+
+  Identifier identifier;
   final Results.Errors errors;
+  // 只检查语法, 值用 ValueReaders 中的 VALIDATED_* 代替, 不解码
+  boolean validateOnly;
+  // false 的时候 table 右边的注释只检查, 不截取
+  boolean keepComments = true;
+  // 日期返回 java.time 的值, 而不是 Date
+  boolean javaTime;
+  ParseLimits limits = ParseLimits.DEFAULT;
+  // null 的时候不检查
+  CancellationToken cancellation;
+  // checkCancelled 被调用的次数, 每 CHECK_INTERVAL 次才检查一次 cancellation
+  private int ticks;
+  // 已经读到的 key, table, 数组元素和内联表的 entry 的个数
+  int nodes;
   
-  public Context(Identifier identifier, AtomicInteger line, Results.Errors errors) {
+  public Context(Identifier identifier, Results.Errors errors) {
     this.identifier = identifier;
-    this.line = line;
     this.errors = errors;
   }
 
-  public Context with(Identifier identifier) {
-    return new Context(identifier, line, errors);
+  /**
+   * @return false 节点数超过了 limits.maxTotalNodes
+   */
+  boolean addNode() {
+    return ++nodes <= limits.maxTotalNodes;
+  }
+
+  /**
+   * @param contentStart 字符串的内容开始的位置
+   * @return 结束的引号必须在这个位置之前, 否则超过了 limits.maxStringLength. 没有限制的时候为 Integer.MAX_VALUE
+   */
+  int stringLimit(int contentStart) {
+    int max = limits.maxStringLength;
+    return max >= Integer.MAX_VALUE - contentStart ? Integer.MAX_VALUE : contentStart + max + 1;
+  }
+
+  /**
+   * 在解析的主循环和可能很长的值中每读一个字符或者一行调用一次
+   */
+  void checkCancelled(Cursor index) {
+    if (cancellation != null && (++ticks & (CHECK_INTERVAL - 1)) == 0) {
+      cancellation.check(index.line());
+    }
   }
 }
@@ -0,0 +1,98 @@
+package com.moandjiezana.toml;
+
+/**
+ * 解析时的位置: 当前索引, 行号和列号
+ *
+ * 解析是单线程的, 所以不需要 AtomicInteger
+ */
+final class Cursor {
+
+  private int index;
+  private int line = 1;
+  // 当前行第一个字符的索引
+  private int lineStart;
+
+  Cursor() {}
+
+  Cursor(int index) {
+    this.index = index;
+  }
+
+  /**
+   * @param line index 所在的行号, index 必须是一行的开头
+   */
+  Cursor(int index, int line) {
+    this.index = index;
+    this.line = line;
+    this.lineStart = index;
+  }
+
+  int get() {
+    return index;
+  }
+
+  void set(int index) {
+    this.index = index;
+  }
+
+  /**
+   * @return 移动后的索引
+   */
+  int next() {
+    return ++index;
+  }
+
+  /**
+   * @return 移动后的索引
+   */
+  int back() {
+    return --index;
+  }
+
+  /**
+   * @return 移动后的索引
+   */
+  int advance(int count) {
+    index += count;
+    return index;
+  }
+
+  /**
+   * @param newLineIndex 换行符 \n 的索引
+   */
+  void newLine(int newLineIndex) {
+    line++;
+    lineStart = newLineIndex + 1;
+  }
+
+  /**
+   * @return newLineIndex 处的换行符已经用 newLine 计入行号
+   */
+  boolean isCounted(int newLineIndex) {
+    return lineStart > newLineIndex;
+  }
+
+  int line() {
+    return line;
+  }
+
+  /**
+   * @return 从 1 开始的列号
+   */
+  int column() {
+    return index - lineStart + 1;
+  }
+
+  /**
+   * @param offset 当前行中的索引
+   * @return offset 从 1 开始的列号
+   */
+  int column(int offset) {
+    return offset - lineStart + 1;
+  }
+
+  @Override
+  public String toString() {
+    return "index " + index + ", line " + line + ", column " + column();
+  }
+}
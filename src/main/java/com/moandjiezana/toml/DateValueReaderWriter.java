@@ -3,19 +3,15 @@ package com.moandjiezana.toml;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 class DateValueReaderWriter implements ValueReader, ValueWriter {
 
   static final DateValueReaderWriter DATE_VALUE_READER_WRITER = new DateValueReaderWriter();
   static final DateValueReaderWriter DATE_PARSER_JDK_6 = new DateConverterJdk6();
-  private static final Pattern DATE_REGEX = Pattern.compile("(\\d{4}-[0-1][0-9]-[0-3][0-9]T[0-2][0-9]:[0-5][0-9]:[0-5][0-9])(\\.\\d*)?(Z|(?:[+\\-]\\d{2}:\\d{2}))(.*)");
 
   @Override
-  public boolean canRead(String s,int readStartIndex) {
-      if (s.length() - readStartIndex < 5) {
+  public boolean canRead(TomlInput s,int readStartIndex) {
+      if (!s.has(readStartIndex + 4)) {
           return false;
       }
 
@@ -35,62 +31,230 @@ class DateValueReaderWriter implements ValueReader, ValueWriter {
     return true;
   }
 
+  /**
+   * 按固定的位置解析 RFC 3339 的 yyyy-MM-ddTHH:mm:ss[.fraction](Z|+HH:MM), 直接算出 epoch 毫秒.
+   * Context.javaTime 的时候返回 java.time 的值, 并且接受没有时区的日期时间, 日期和时间
+   */
   @Override
-  public Object read(String original, AtomicInteger index, Context context) {
-    StringBuilder sb = new StringBuilder();
-    
-    for (int i = index.get(); i < original.length(); i = index.incrementAndGet()) {
-      char c = original.charAt(i);
-      if (Character.isDigit(c) || c == '-' || c == '+' || c == ':' || c == '.' || c == 'T' || c == 'Z') {
-        sb.append(c);
-      } else {
-        index.decrementAndGet();
-        break;
-      }
+  public Object read(TomlInput s, Cursor index, Context context) {
+    return read(s, index, context, false);
+  }
+
+  /**
+   * 带时区的日期时间只检查, 返回的 {@link LazyValue} 在第一次访问的时候才转换成 Date 或 OffsetDateTime.
+   * 没有时区的 java.time 的值检查的时候就已经创建了, 直接返回
+   */
+  Object readLazily(TomlInput s, Cursor index, Context context) {
+    return read(s, index, context, true);
+  }
+
+  /**
+   * @param s 已经检查过的带时区的日期时间
+   */
+  static Object decode(TomlInput s, int start, int end, boolean javaTime) {
+    return parse(s, start, end, javaTime, false);
+  }
+
+  private Object read(TomlInput s, Cursor index, Context context, boolean lazy) {
+    int start = index.get();
+    int end = start;
+    while (s.has(end) && isDateChar(s.charAt(end))) {
+      end++;
     }
-    
-    String s = sb.toString();
-    Matcher matcher = DATE_REGEX.matcher(s);
-    
-    if (!matcher.matches()) {
-      Results.Errors errors = new Results.Errors();
-      errors.invalidValue(context.identifier.getName(), s, context.line.get());
-      return errors;
+    index.set(end - 1);
+
+    Object value = parse(s, start, end, context.javaTime, context.validateOnly || lazy);
+    if (lazy && !context.validateOnly && value == ValueReaders.VALIDATED_DATE) {
+      return LazyValue.of(s, start, end, context.javaTime ? LazyValue.JAVA_TIME : LazyValue.DATE);
     }
-    
-    String dateString = matcher.group(1);
-    String zone = matcher.group(3);
-    String fractionalSeconds = matcher.group(2);
-    String format = "yyyy-MM-dd'T'HH:mm:ss";
-    if (fractionalSeconds != null && !fractionalSeconds.isEmpty()) {
-      format += ".SSS";
-      dateString += fractionalSeconds;
-    }
-    format += "Z";
-    if ("Z".equals(zone)) {
-      dateString += "+0000";
-    } else if (zone.contains(":")) {
-      dateString += zone.replace(":", "");
-    }
-
-    try {
-      SimpleDateFormat dateFormat = new SimpleDateFormat(format);
-      dateFormat.setLenient(false);
-      return dateFormat.parse(dateString);
-    } catch (Exception e) {
+    if (value == null) {
       Results.Errors errors = new Results.Errors();
-      errors.invalidValue(context.identifier.getName(), s, context.line.get());
+      errors.invalidValue(context.identifier.getName(), Results.Errors.excerpt(s, start, end), start, index.line(), index.column(start));
       return errors;
     }
+    return value;
+  }
+
+  /**
+   * @return null 不是合法的日期
+   */
+  private static Object parse(TomlInput s, int start, int end, boolean javaTime, boolean validateOnly) {
+    if (end - start >= 8 && s.charAt(start + 2) == ':') {
+      return javaTime ? parseLocalTime(s, start, end) : null;
+    }
+    if (end - start < 10 || s.charAt(start + 4) != '-' || s.charAt(start + 7) != '-') {
+      return null;
+    }
+    int year = digits(s, start, 4);
+    int month = digits(s, start + 5, 2);
+    int day = digits(s, start + 8, 2);
+    if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+      return null;
+    }
+    int i = start + 10;
+    if (i == end) {
+      return javaTime ? JavaTimeValues.localDate(year, month, day) : null;
+    }
+    if (s.charAt(i) != 'T' || end - i < 9 || s.charAt(i + 3) != ':' || s.charAt(i + 6) != ':') {
+      return null;
+    }
+    int hour = digits(s, i + 1, 2);
+    int minute = digits(s, i + 4, 2);
+    int second = digits(s, i + 7, 2);
+    if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+      return null;
+    }
+    i += 9;
+    int nano = 0;
+    if (i < end && s.charAt(i) == '.') {
+      int fractionEnd = fractionEnd(s, i + 1, end);
+      if (fractionEnd < 0) {
+        return null;
+      }
+      nano = nano(s, i + 1, fractionEnd);
+      i = fractionEnd;
+    }
+    if (i == end) {
+      return javaTime ? JavaTimeValues.localDateTime(year, month, day, hour, minute, second, nano) : null;
+    }
+
+    int offsetSeconds;
+    if (s.charAt(i) == 'Z' && i + 1 == end) {
+      offsetSeconds = 0;
+    } else if ((s.charAt(i) == '+' || s.charAt(i) == '-') && i + 6 == end && s.charAt(i + 3) == ':') {
+      int offsetHour = digits(s, i + 1, 2);
+      int offsetMinute = digits(s, i + 4, 2);
+      if (offsetHour < 0 || offsetHour > 23 || offsetMinute < 0 || offsetMinute > 59) {
+        return null;
+      }
+      offsetSeconds = (offsetHour * 60 + offsetMinute) * 60;
+      if (s.charAt(i) == '-') {
+        offsetSeconds = -offsetSeconds;
+      }
+    } else {
+      return null;
+    }
+
+    if (validateOnly) {
+      return ValueReaders.VALIDATED_DATE;
+    }
+    if (javaTime) {
+      return JavaTimeValues.offsetDateTime(year, month, day, hour, minute, second, nano, offsetSeconds);
+    }
+    long seconds = daysFromEpoch(year, month, day) * 86400 + hour * 3600 + minute * 60 + second - offsetSeconds;
+    return new Date(seconds * 1000 + nano / 1000000);
+  }
+
+  private static Object parseLocalTime(TomlInput s, int start, int end) {
+    if (s.charAt(start + 5) != ':') {
+      return null;
+    }
+    int hour = digits(s, start, 2);
+    int minute = digits(s, start + 3, 2);
+    int second = digits(s, start + 6, 2);
+    if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+      return null;
+    }
+    int i = start + 8;
+    int nano = 0;
+    if (i < end) {
+      int fractionEnd = s.charAt(i) == '.' ? fractionEnd(s, i + 1, end) : -1;
+      if (fractionEnd != end) {
+        return null;
+      }
+      nano = nano(s, i + 1, fractionEnd);
+    }
+    return JavaTimeValues.localTime(hour, minute, second, nano);
+  }
+
+  /**
+   * @return 没有数字的时候为 -1
+   */
+  private static int fractionEnd(TomlInput s, int i, int end) {
+    int fractionEnd = i;
+    while (fractionEnd < end && isDigit(s.charAt(fractionEnd))) {
+      fractionEnd++;
+    }
+    return fractionEnd == i ? -1 : fractionEnd;
+  }
+
+  /**
+   * 超过 9 位的小数直接截断
+   */
+  private static int nano(TomlInput s, int start, int end) {
+    int nano = 0;
+    for (int i = start; i < start + 9; i++) {
+      nano = nano * 10 + (i < end ? s.charAt(i) - '0' : 0);
+    }
+    return nano;
+  }
+
+  /**
+   * @return 不全是数字的时候为 -1
+   */
+  private static int digits(TomlInput s, int start, int count) {
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      char c = s.charAt(i);
+      if (!isDigit(c)) {
+        return -1;
+      }
+      value = value * 10 + c - '0';
+    }
+    return value;
+  }
+
+  private static int daysInMonth(int year, int month) {
+    if (month == 2) {
+      return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+    }
+    return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * 公历 (包括 1582 年之前) 的日期到 1970-01-01 的天数
+   */
+  static long daysFromEpoch(int year, int month, int day) {
+    // 从 3 月开始算一年, 闰日在一年的最后
+    int y = month <= 2 ? year - 1 : year;
+    int era = (y >= 0 ? y : y - 399) / 400;
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468;
+  }
+
+  /**
+   * 只比较类名, 在没有 java.time 的 JDK 上不会加载 JavaTimeValues
+   */
+  private static boolean isJavaTime(Object value) {
+    if (value == null) {
+      return false;
+    }
+    String name = value.getClass().getName();
+    return name.equals("java.time.OffsetDateTime") || name.equals("java.time.LocalDateTime")
+      || name.equals("java.time.LocalDate") || name.equals("java.time.LocalTime");
+  }
+
+  private static boolean isDateChar(char c) {
+    return isDigit(c) || c == '-' || c == '+' || c == ':' || c == '.' || c == 'T' || c == 'Z';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
   }
 
   @Override
   public boolean canWrite(Object value) {
-    return value instanceof Date;
+    return value instanceof Date || isJavaTime(value);
   }
 
   @Override
   public void write(Object value, WriterContext context) {
+    if (!(value instanceof Date)) {
+      context.write(JavaTimeValues.format(value));
+      return;
+    }
     DateFormat formatter = getFormatter(context.getDatePolicy());
     context.write(formatter.format(value));
   }
@@ -132,6 +296,10 @@ class DateValueReaderWriter implements ValueReader, ValueWriter {
   private static class DateConverterJdk6 extends DateValueReaderWriter {
     @Override
     public void write(Object value, WriterContext context) {
+      if (!(value instanceof Date)) {
+        super.write(value, context);
+        return;
+      }
       DateFormat formatter = super.getFormatter(context.getDatePolicy());
       String date = formatter.format(value);
       
@@ -1,13 +1,12 @@
 package com.moandjiezana.toml;
 
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by yangyi on 2021/2/28.
 
  *
  */
-public class GeneralStringKeyRead {
+class GeneralStringKeyRead {
 
     /**
      * 读取 "123" 或者 '123' 中的 123
@@ -20,9 +19,9 @@ public class GeneralStringKeyRead {
      * @param index
      * @return null 未找到字符换则非法
      */
-    public static ReadKeyResult readStrKeyAndMvIndexToEqualSplit(String s, AtomicInteger index) {
+    static ReadKeyResult readStrKeyAndMvIndexToEqualSplit(TomlInput s, Cursor index) {
         int i = index.get();
-        if (i < 0 || i >= s.length()) {
+        if (i < 0 || !s.has(i)) {
             throw new IllegalArgumentException();
         }
         if (s.charAt(i) == '\'') {
@@ -38,7 +37,7 @@ public class GeneralStringKeyRead {
             if (result == null) {
                 return new ReadKeyResult(s.substring(i, index.get()), false);
             }
-            index.incrementAndGet();
+            index.next();
             if (!moveIndexToEq(s, index)) {
                 return new ReadKeyResult(s.substring(i, index.get()), false);
             }
@@ -46,23 +45,21 @@ public class GeneralStringKeyRead {
             return new ReadKeyResult(result, true);
         }
 
-        StringBuilder keyBuilder = new StringBuilder();
-        if (Character.isWhitespace(s.charAt(index.get()))) {
+        if (Lexer.isWhitespace(s.charAt(index.get()))) {
             throw new IllegalArgumentException();
         }
-        keyBuilder.append(s.charAt(index.get()));
-        while (index.incrementAndGet() < s.length()) {
+        // 合法的 key 在 scanBareKey 中就已经读完了, 剩下的部分只用于错误信息
+        for (index.set(Lexer.scanBareKey(s, i + 1)); s.has(index.get()); index.next()) {
             char c = s.charAt(index.get());
-            if (c == '=' || Character.isWhitespace(c)) {
+            if (c == '=' || Lexer.isWhitespace(c)) {
                 break;
-            } else {
-                keyBuilder.append(c);
             }
         }
+        String key = s.substring(i, index.get());
         if (!moveIndexToEq(s, index)) {
             return new ReadKeyResult(s.substring(i, index.get()), false);
         } else {
-            return new ReadKeyResult(keyBuilder.toString(), true);
+            return new ReadKeyResult(key, true);
         }
     }
 
@@ -72,16 +69,16 @@ public class GeneralStringKeyRead {
      * @param index
      * @return
      */
-    static boolean moveIndexToEq(String s, AtomicInteger index) {
-        if (index.get() >= s.length()) {
+    static boolean moveIndexToEq(TomlInput s, Cursor index) {
+        if (!s.has(index.get())) {
             return false;
         }
         if (s.charAt(index.get()) == '=') {
             return true;
         }
-        while (index.incrementAndGet() < s.length()) {
+        while (s.has(index.next())) {
             int i = index.get();
-            if (Character.isWhitespace(s.charAt(i))) {
+            if (Lexer.isWhitespace(s.charAt(i))) {
                 continue;
             }
             return s.charAt(i) == '=';
@@ -96,15 +93,15 @@ public class GeneralStringKeyRead {
      quotes
      * @return
      */
-    private static String readSingleQuotesKeyStrMoveIndexToEq(String s, AtomicInteger index,boolean isMoveIndexToEq) {
+    private static String readSingleQuotesKeyStrMoveIndexToEq(TomlInput s, Cursor index,boolean isMoveIndexToEq) {
         int startIndex = index.get();
-        if (startIndex >= s.length() || startIndex < 0) {
+        if (!s.has(startIndex) || startIndex < 0) {
             throw new IllegalArgumentException();
         }
         if (s.charAt(startIndex) != '\'') {
             throw new IllegalArgumentException();
         }
-        while (index.incrementAndGet() < s.length()) {
+        while (s.has(index.next())) {
             int currentIndex = index.get();
             char c = s.charAt(currentIndex);
             if (c == '\n') {
@@ -126,9 +123,9 @@ public class GeneralStringKeyRead {
      * @param index
      * @return 字符不合法则返回 null  返回合法则 index设为结束符 ' 或 " 的索引位置
      */
-    public static String readQuotesString(String s, AtomicInteger index) {
+    static String readQuotesString(TomlInput s, Cursor index) {
         int startIndex = index.get();
-        if (startIndex >= s.length() || startIndex < 0) {
+        if (!s.has(startIndex) || startIndex < 0) {
             throw new IllegalArgumentException();
         }
         if (s.charAt(startIndex) == '\'') {
@@ -140,15 +137,3 @@ public class GeneralStringKeyRead {
         throw new IllegalStateException();
     }
 }
-
-class ReadKeyResult {
-    //可能为null
-    final String key;
-    //是否有效
-    final boolean isValid;
-
-    public ReadKeyResult(String key, boolean isValid) {
-        this.key = key;
-        this.isValid = isValid;
-    }
-}
\ No newline at end of file
@@ -49,20 +49,14 @@ class Identifier {
         }
         this.nameKeys = keys;
         this.type = type;
-        StringBuilder builder = new StringBuilder();
+        StringBuilder builder = new StringBuilder(isTable() ? "[" : "[[");
         for (int i = 0; i < this.nameKeys.size(); i++) {
             builder.append(nameKeys.get(i));
             if (i != this.nameKeys.size() - 1) {
                 builder.append(".");
             }
         }
-        if (isTable()) {
-            builder.insert(0, "[");
-            builder.append( "]");
-        } else if (isTableArray()) {
-            builder.insert(0, "[[");
-            builder.append("]]");
-        }
+        builder.append(isTable() ? "]" : "]]");
         this.name = builder.toString();
     }
   
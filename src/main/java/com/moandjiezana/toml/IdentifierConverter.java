@@ -2,17 +2,16 @@ package com.moandjiezana.toml;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 class IdentifierConverter {
 
     static final IdentifierConverter IDENTIFIER_CONVERTER = new IdentifierConverter();
 
-    Identifier convert(String s, AtomicInteger index, Context context) {
+    Identifier convert(TomlInput s, Cursor index, Context context) {
         String rightComment = null;
         boolean terminated = false;
         boolean isKey = s.charAt(index.get()) != '[';
-        boolean isTableArray = !isKey && s.length() > index.get() + 1 && s.charAt(index.get() + 1) == '[';
+        boolean isTableArray = !isKey && s.has(index.get() + 1) && s.charAt(index.get() + 1) == '[';
         int keyStartIndex = index.get();
         String key = null;
         List<String> tableOrTableArrayKey = null;
@@ -21,15 +20,15 @@ class IdentifierConverter {
             ReadKeyResult keyReadResult = GeneralStringKeyRead.readStrKeyAndMvIndexToEqualSplit(s, index);
             String readStrKey = keyReadResult.key;
             if (!keyReadResult.isValid) {
-                context.errors.invalidKey(s.substring(keyStartIndex), context.line.get());
+                context.errors.invalidKey(Results.Errors.excerpt(s, keyStartIndex), keyStartIndex, index.line(), index.column(keyStartIndex));
                 return Identifier.INVALID;
             }else if (keyStartChar == '\"'|| keyStartChar== '\'') {
                 key = readStrKey;
             } else{
-                if (StringValueReaderWriter.QUOTE_KEY_PATTEN.matcher(readStrKey).matches()) {
+                if (Lexer.isBareKey(readStrKey)) {
                     key = readStrKey;
                 } else {
-                    context.errors.invalidKey(readStrKey, context.line.get());
+                    context.errors.invalidKey(readStrKey, keyStartIndex, index.line(), index.column(keyStartIndex));
                     return Identifier.INVALID;
                 }
             }
@@ -37,14 +36,14 @@ class IdentifierConverter {
                 terminated = searchKeyEndIndex(s, index);
             }
         }else if(!isTableArray){
-            index.incrementAndGet();
+            index.next();
             tableOrTableArrayKey = searchWrapperKey(s, index, "]");
             if (tableOrTableArrayKey != null) {
                 terminated = true;
             }
         }else if(isTableArray){
-            index.incrementAndGet();
-            index.incrementAndGet();
+            index.next();
+            index.next();
             tableOrTableArrayKey = searchWrapperKey(s, index, "]]");
             if (tableOrTableArrayKey != null) {
                 terminated = true;
@@ -53,9 +52,9 @@ class IdentifierConverter {
 
         if (!terminated) {
             if (isTableArray) {
-                context.errors.invalidTableArray(s.substring(keyStartIndex, index.get()), context.line.get());
+                context.errors.invalidTableArray(Results.Errors.excerpt(s, keyStartIndex, index.get()), keyStartIndex, index.line(), index.column(keyStartIndex));
             } else {
-                context.errors.invalidTable(s.substring(keyStartIndex,index.get()), context.line.get());
+                context.errors.invalidTable(Results.Errors.excerpt(s, keyStartIndex, index.get()), keyStartIndex, index.line(), index.column(keyStartIndex));
             }
 
             return Identifier.INVALID;
@@ -64,21 +63,21 @@ class IdentifierConverter {
         if (isKey) {
             from = new Identifier(key, Identifier.Type.KEY);
         }else if(isTableArray){
-            rightComment = subRightComment(s, index);
+            rightComment = subRightComment(s, index, context.keepComments);
             if (rightComment == null) {
-                context.errors.invalidTableArray(s.substring(keyStartIndex,index.get()),context.line.get());
+                context.errors.invalidTableArray(Results.Errors.excerpt(s, keyStartIndex, index.get()), keyStartIndex, index.line(), index.column(keyStartIndex));
                 return Identifier.INVALID;
             }
             from = new Identifier(tableOrTableArrayKey, Identifier.Type.TABLE_ARRAY);
         }else{
-            rightComment = subRightComment(s, index);
+            rightComment = subRightComment(s, index, context.keepComments);
             if (rightComment == null) {
-                context.errors.invalidTable(s.substring(keyStartIndex,index.get()),context.line.get());
+                context.errors.invalidTable(Results.Errors.excerpt(s, keyStartIndex, index.get()), keyStartIndex, index.line(), index.column(keyStartIndex));
                 return Identifier.INVALID;
             }
             from = new Identifier(tableOrTableArrayKey, Identifier.Type.TABLE);
         }
-        if (rightComment != null) {
+        if (rightComment != null && context.keepComments) {
             from.setRightComment(rightComment);
         }
         return from;
@@ -88,22 +87,23 @@ class IdentifierConverter {
      * 截取 table或者 tableArray的右边的注释 不包含换行符
      * @param s
      * @param index
+     * @param keepComment false 的时候只检查, 返回 ""
      * @return null 非法的注释  比如 table 这样定义 [asd]123 注释 123是非法的不是以 空格与 #开头
      *         ""  没有注释
      */
-    private String subRightComment(String s, AtomicInteger index) {
+    private String subRightComment(TomlInput s, Cursor index, boolean keepComment) {
         int startIndex = index.get();
         boolean hasCommentStart = false;
         boolean isEndWithLineBreak = false;
-        if (index.get() < s.length()) {
-            while (index.get() < s.length()) {
+        if (s.has(index.get())) {
+            while (s.has(index.get())) {
                 char c = s.charAt(index.get());
                 if (c == '\n') {
                     isEndWithLineBreak = true;
                     break;
                 }
-                index.incrementAndGet();
-                if (!Character.isWhitespace(c) &&!hasCommentStart){
+                index.next();
+                if (!Lexer.isWhitespace(c) &&!hasCommentStart){
                     if (c == '#') {
                         hasCommentStart = true;
                         continue;
@@ -114,26 +114,26 @@ class IdentifierConverter {
             }
             int endIndex = index.get();
             if (isEndWithLineBreak) {
-                index.decrementAndGet();
+                index.back();
             }
-            return s.substring(startIndex, endIndex);
+            return keepComment ? s.substring(startIndex, endIndex) : "";
         } else {
             return "";
         }
     }
 
-    public static List<String> searchWrapperKey(String s, AtomicInteger index, String endMark) {
+    public static List<String> searchWrapperKey(TomlInput s, Cursor index, String endMark) {
         List<String> keys = new ArrayList<>();
         boolean searchNextSplitOrEndMark = false;
         outside: while (true) {
             int searchIndex = index.get();
-            if (searchIndex >= s.length()) {
+            if (!s.has(searchIndex)) {
                 keys = null;
                 break;
             }
             char c = s.charAt(searchIndex);
-            if (Character.isWhitespace(c)) {
-                index.incrementAndGet();
+            if (Lexer.isWhitespace(c)) {
+                index.next();
                 continue;
             }
             if (c == '#') {
@@ -146,7 +146,7 @@ class IdentifierConverter {
                     break;
                 }else if (c == '.') {
                     searchNextSplitOrEndMark = false;
-                    index.incrementAndGet();
+                    index.next();
                     continue;
                 }else{
                     keys = null;
@@ -161,25 +161,17 @@ class IdentifierConverter {
                     break;
                 }
                 keys.add(result);
-                index.incrementAndGet();
+                index.next();
                 searchNextSplitOrEndMark = true;
                 continue;
             } else {
-                StringBuilder keyBuilder = new StringBuilder();
-                while (true) {
-                    char keyChar = s.charAt(index.get());
-                    if (StringValueReaderWriter.isQuoteKey(keyChar)) {
-                        keyBuilder.append(keyChar);
-                    } else {
-                        break;
-                    }
-                    index.incrementAndGet();
-                }
-                if (keyBuilder.length() == 0) {
+                int keyEndIndex = Lexer.scanBareKey(s, searchIndex);
+                if (keyEndIndex == searchIndex) {
                     keys = null;
                     break outside;
                 }
-                keys.add(keyBuilder.toString());
+                keys.add(s.substring(searchIndex, keyEndIndex));
+                index.set(keyEndIndex);
                 searchNextSplitOrEndMark = true;
                 continue;
             }
@@ -187,15 +179,9 @@ class IdentifierConverter {
         return (keys == null || keys.isEmpty()) ? null : keys;
     }
 
-    static int jumpToNextLine(String s, int searchIndex) {
-        while (searchIndex < s.length()) {
-            if (s.charAt(searchIndex) == '\n') {
-                searchIndex++;
-                return searchIndex;
-            }
-            searchIndex++;
-        }
-        return s.length();
+    static int jumpToNextLine(TomlInput s, int searchIndex) {
+        int lineEnd = s.indexOf('\n', searchIndex);
+        return s.has(lineEnd) ? lineEnd + 1 : lineEnd;
     }
 
     /**
@@ -205,22 +191,10 @@ class IdentifierConverter {
      * @param index
      * @return
      */
-    private boolean searchKeyEndIndex(String s, AtomicInteger index) {
-        boolean terminated = false;
-        int kVSplitSearchStartIndex = index.get();
-        while (kVSplitSearchStartIndex < s.length()) {
-            char c = s.charAt(kVSplitSearchStartIndex);
-            if (c == '=') {
-                terminated = true;
-                break;
-            }
-            if (!Character.isWhitespace(c)) {
-                break;
-            }
-            kVSplitSearchStartIndex++;
-        }
+    private boolean searchKeyEndIndex(TomlInput s, Cursor index) {
+        int kVSplitSearchStartIndex = Lexer.skipWhitespace(s, index.get());
         index.set(kVSplitSearchStartIndex);
-        return terminated;
+        return s.has(kVSplitSearchStartIndex) && s.charAt(kVSplitSearchStartIndex) == '=';
     }
 
     private IdentifierConverter() {}
@@ -0,0 +1,50 @@
+package com.moandjiezana.toml;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * 所有用到 java.time 的地方, 只有打开了 java.time 或者写入 java.time 的值才会加载, 所以 JDK 7 上仍然可以使用其它的功能
+ */
+final class JavaTimeValues {
+
+  static Object offsetDateTime(int year, int month, int day, int hour, int minute, int second, int nano, int offsetSeconds) {
+    return OffsetDateTime.of(year, month, day, hour, minute, second, nano, ZoneOffset.ofTotalSeconds(offsetSeconds));
+  }
+
+  static Object localDateTime(int year, int month, int day, int hour, int minute, int second, int nano) {
+    return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+  }
+
+  static Object localDate(int year, int month, int day) {
+    return LocalDate.of(year, month, day);
+  }
+
+  static Object localTime(int hour, int minute, int second, int nano) {
+    return LocalTime.of(hour, minute, second, nano);
+  }
+
+  /**
+   * 秒总是写出来, 小数部分只写需要的位数
+   */
+  static String format(Object value) {
+    DateTimeFormatter formatter;
+    if (value instanceof OffsetDateTime) {
+      formatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+    } else if (value instanceof LocalDateTime) {
+      formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    } else if (value instanceof LocalDate) {
+      formatter = DateTimeFormatter.ISO_LOCAL_DATE;
+    } else {
+      formatter = DateTimeFormatter.ISO_LOCAL_TIME;
+    }
+    return formatter.format((TemporalAccessor) value);
+  }
+
+  private JavaTimeValues() {}
+}
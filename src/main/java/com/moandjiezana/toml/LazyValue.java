@@ -0,0 +1,82 @@
+package com.moandjiezana.toml;
+
+/**
+ * 还没有解码的值: 源中的 [start, end) 和类型, 第一次通过 Toml.get* 或者 toMap 访问的时候才解码
+ *
+ * 解析的时候已经检查过语法, 所以解码不会失败
+ */
+final class LazyValue {
+
+  // 不需要处理转义的字符串
+  static final byte STRING = 0;
+  // 不超过 18 位, 不会超出 long 的范围
+  static final byte INTEGER = 1;
+  static final byte FLOAT = 2;
+  // 带时区的日期时间, 解码成 Date 或者 OffsetDateTime
+  static final byte DATE = 3;
+  static final byte JAVA_TIME = 4;
+
+  private final TomlInput source;
+  private final int start;
+  private final int end;
+  private final byte type;
+  // 多个线程同时访问最多重复解码一次, 不需要加锁. DATE 解码成可变的 Date, volatile 保证其它线程看到的是完整构造的对象
+  private volatile Object value;
+
+  private LazyValue(TomlInput source, int start, int end, byte type) {
+    this.source = source;
+    this.start = start;
+    this.end = end;
+    this.type = type;
+  }
+
+  /**
+   * 源可以保留的时候只记录索引. 否则字符串直接返回截取的结果, 其它的值先复制出原始文本
+   */
+  static Object of(TomlInput s, int start, int end, byte type) {
+    if (s.canRetain()) {
+      return new LazyValue(s, start, end, type);
+    }
+    String raw = s.substring(start, end);
+    if (type == STRING) {
+      return raw;
+    }
+    return new LazyValue(TomlInput.of(raw), 0, raw.length(), type);
+  }
+
+  static Object decode(TomlInput s, int start, int end, byte type) {
+    switch (type) {
+      case INTEGER:
+        return NumberValueReaderWriter.parseLong(s, start, end);
+      case FLOAT:
+        return NumberValueReaderWriter.parseDouble(s, start, end);
+      case DATE:
+        return DateValueReaderWriter.decode(s, start, end, false);
+      case JAVA_TIME:
+        return DateValueReaderWriter.decode(s, start, end, true);
+      default:
+        return s.substring(start, end);
+    }
+  }
+
+  /**
+   * @return value 本身, 或者 LazyValue 解码后的值
+   */
+  static Object resolve(Object value) {
+    return value instanceof LazyValue ? ((LazyValue) value).get() : value;
+  }
+
+  Object get() {
+    Object decoded = value;
+    if (decoded == null) {
+      decoded = decode(source, start, end, type);
+      value = decoded;
+    }
+    return decoded;
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(get());
+  }
+}
@@ -0,0 +1,96 @@
+package com.moandjiezana.toml;
+
+/**
+ * key, table 的名字, 内联表和数组共用的字符分类: 空白, bare key 和数字, ASCII 字符查表, 不用正则表达式
+ *
+ * 空白和 Character.isWhitespace 一致, 所以 \n 也是空白, 需要区分换行的地方要先检查 \n
+ */
+final class Lexer {
+
+  private static final int WHITESPACE = 1;
+  // A-Z a-z 0-9 _ -
+  private static final int BARE_KEY = 1 << 1;
+  private static final int DIGIT = 1 << 2;
+
+  private static final byte[] CLASSES = new byte[128];
+
+  static {
+    for (char c = 0; c < CLASSES.length; c++) {
+      if (Character.isWhitespace(c)) {
+        CLASSES[c] |= WHITESPACE;
+      }
+      if (c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '_' || c == '-') {
+        CLASSES[c] |= BARE_KEY;
+      }
+      if (c >= '0' && c <= '9') {
+        CLASSES[c] |= DIGIT;
+      }
+    }
+  }
+
+  static boolean isWhitespace(char c) {
+    // 非 ASCII 的空白很少出现, 保持和以前一样的结果
+    return c < 128 ? (CLASSES[c] & WHITESPACE) != 0 : Character.isWhitespace(c);
+  }
+
+  static boolean isBareKey(char c) {
+    return c < 128 && (CLASSES[c] & BARE_KEY) != 0;
+  }
+
+  static boolean isDigit(char c) {
+    return c < 128 && (CLASSES[c] & DIGIT) != 0;
+  }
+
+  /**
+   * @return i 之后第一个不是 bare key 字符的索引
+   */
+  static int scanBareKey(TomlInput s, int i) {
+    while (s.has(i) && isBareKey(s.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * @return i 之后第一个不是空白的索引, 换行也会跳过
+   */
+  static int skipWhitespace(TomlInput s, int i) {
+    while (s.has(i) && isWhitespace(s.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * @return key 不为空并且只有 A-Z a-z 0-9 _ -
+   */
+  static boolean isBareKey(String key) {
+    if (key.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < key.length(); i++) {
+      if (!isBareKey(key.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 内联表中的 key 还可以有 . , 但是不能以 . 开始或者结束
+   */
+  static boolean isDottedBareKey(String key) {
+    if (key.isEmpty() || key.charAt(0) == '.' || key.charAt(key.length() - 1) == '.') {
+      return false;
+    }
+    for (int i = 0; i < key.length(); i++) {
+      char c = key.charAt(i);
+      if (c != '.' && !isBareKey(c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Lexer() {}
+}
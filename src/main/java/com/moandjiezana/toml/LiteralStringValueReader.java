@@ -1,6 +1,5 @@
 package com.moandjiezana.toml;
 
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 读 以 ' 开头的字符串
@@ -10,34 +9,46 @@ class LiteralStringValueReader implements ValueReader {
   static final LiteralStringValueReader LITERAL_STRING_VALUE_READER = new LiteralStringValueReader();
   
   @Override
-  public boolean canRead(String s,int readStartIndex) {
+  public boolean canRead(TomlInput s,int readStartIndex) {
     return s.startsWith("'",readStartIndex);
   }
 
-    @Override
-  public Object read(String s, AtomicInteger index, Context context) {
-    int startLine = context.line.get();
-    boolean terminated = false;
-    int startIndex = index.incrementAndGet();
+  @Override
+  public Object read(TomlInput s, Cursor index, Context context) {
+    return read(s, index, context, false);
+  }
+
+  /**
+   * 字面量字符串不需要解码, 只记录位置
+   */
+  Object readLazily(TomlInput s, Cursor index, Context context) {
+    return read(s, index, context, true);
+  }
+
+  private Object read(TomlInput s, Cursor index, Context context, boolean lazy) {
+    int startLine = index.line();
+    int startIndex = index.next();
+    int limit = context.stringLimit(startIndex);
     
-    for (int i = index.get(); i < s.length(); i = index.incrementAndGet()) {
-      char c = s.charAt(i);
-      
-      if (c == '\'') {
-        terminated = true;
-        break;
-      }
+    index.set(s.indexOfAnyBefore('\'', '\'', '\'', startIndex, limit));
+    if (index.get() >= limit) {
+      return ValueReaders.stringTooLong(s, startIndex - 1, startLine, index.column(startIndex - 1), context);
     }
+    boolean terminated = s.has(index.get());
     
     if (!terminated) {
       Results.Errors errors = new Results.Errors();
-      errors.unterminated(context.identifier.getName(), s.substring(startIndex), startLine);
+      errors.unterminated(context.identifier.getName(), Results.Errors.excerpt(s, startIndex), startIndex - 1, startLine, index.column(startIndex - 1));
       return errors;
     }
     
-    String substring = s.substring(startIndex, index.get());
-    
-    return substring;
+    if (context.validateOnly) {
+      return ValueReaders.VALIDATED_STRING;
+    }
+    if (lazy) {
+      return LazyValue.of(s, startIndex, index.get(), LazyValue.STRING);
+    }
+    return s.substring(startIndex, index.get());
   }
 
   private LiteralStringValueReader() {}
@@ -1,50 +1,57 @@
 package com.moandjiezana.toml;
 
-import java.util.concurrent.atomic.AtomicInteger;
 
 class MultilineLiteralStringValueReader implements ValueReader {
   
   static final MultilineLiteralStringValueReader MULTILINE_LITERAL_STRING_VALUE_READER = new MultilineLiteralStringValueReader(); 
   
   @Override
-  public boolean canRead(String s,int readStartIndex) {
+  public boolean canRead(TomlInput s,int readStartIndex) {
     return s.startsWith("'''",readStartIndex);
   }
 
   @Override
-  public Object read(String s, AtomicInteger index, Context context) {
-    AtomicInteger line = context.line;
-    int startLine = line.get();
+  public Object read(TomlInput s, Cursor index, Context context) {
+    int startLine = index.line();
     int originalStartIndex = index.get();
-    int startIndex = index.addAndGet(3);
-    int endIndex = -1;
-    
-    if (s.charAt(startIndex) == '\n') {
-      startIndex = index.incrementAndGet();
-      line.incrementAndGet();
+    int startColumn = index.column(originalStartIndex);
+    int startIndex = originalStartIndex + 3;
+
+    // 紧跟在开始的 ''' 之后的换行符不属于字符串
+    if (s.has(startIndex) && s.charAt(startIndex) == '\n') {
+      index.newLine(startIndex);
+      startIndex++;
     }
-    
-    for (int i = startIndex; i < s.length(); i = index.incrementAndGet()) {
-      char c = s.charAt(i);
 
-      if (c == '\n') {
-        line.incrementAndGet();
+    int limit = context.stringLimit(startIndex);
+    int i = startIndex;
+    for (; ; i++) {
+      i = s.indexOfAnyBefore('\'', '\n', '\n', i, limit);
+      if (i >= limit) {
+        index.set(limit - 1);
+        return ValueReaders.stringTooLong(s, originalStartIndex, startLine, startColumn, context);
       }
-      
-      if (c == '\'' && s.length() > i + 2 && s.charAt(i + 1) == '\'' && s.charAt(i + 2) == '\'') {
-        endIndex = i;
-        index.addAndGet(2);
+      if (!s.has(i)) {
         break;
       }
-    }
-    
-    if (endIndex == -1) {
-      Results.Errors errors = new Results.Errors();
-      errors.unterminated(context.identifier.getName(), s.substring(originalStartIndex), startLine);
-      return errors;
+      char c = s.charAt(i);
+
+      if (c == '\n') {
+        index.newLine(i);
+        context.checkCancelled(index);
+      } else if (c == '\'' && s.has(i + 2) && s.charAt(i + 1) == '\'' && s.charAt(i + 2) == '\'') {
+        index.set(i + 2);
+        if (context.validateOnly) {
+          return ValueReaders.VALIDATED_STRING;
+        }
+        return s.substring(startIndex, i);
+      }
     }
 
-    return s.substring(startIndex, endIndex);
+    index.set(i);
+    Results.Errors errors = new Results.Errors();
+    errors.unterminated(context.identifier.getName(), Results.Errors.excerpt(s, originalStartIndex), originalStartIndex, startLine, startColumn);
+    return errors;
   }
 
   private MultilineLiteralStringValueReader() {}
@@ -1,52 +1,107 @@
 package com.moandjiezana.toml;
 
-import java.util.concurrent.atomic.AtomicInteger;
 
 class MultilineStringValueReader implements ValueReader {
 
   static final MultilineStringValueReader MULTILINE_STRING_VALUE_READER = new MultilineStringValueReader();
 
   @Override
-  public boolean canRead(String s,int readStartIndex) {
+  public boolean canRead(TomlInput s,int readStartIndex) {
     return s.startsWith("\"\"\"",readStartIndex);
   }
 
+  /**
+   * 一次扫描同时找到结束的 """, 处理转义和行尾的 \.
+   * 没有转义的时候只截取一次, 否则只用一个 StringBuilder
+   */
   @Override
-  public Object read(String s, AtomicInteger index, Context context) {
-    AtomicInteger line = context.line;
-    int startLine = line.get();
+  public Object read(TomlInput s, Cursor index, Context context) {
+    int startLine = index.line();
     int originalStartIndex = index.get();
-    int startIndex = index.addAndGet(3);
-    int endIndex = -1;
-    
-    if (s.charAt(startIndex) == '\n') {
-      startIndex = index.incrementAndGet();
-      line.incrementAndGet();
+    int startColumn = index.column(originalStartIndex);
+    int startIndex = originalStartIndex + 3;
+
+    // 紧跟在开始的 """ 之后的换行符不属于字符串
+    if (s.has(startIndex) && s.charAt(startIndex) == '\n') {
+      index.newLine(startIndex);
+      startIndex++;
     }
-    
-    for (int i = startIndex; i < s.length(); i = index.incrementAndGet()) {
+
+    boolean decode = !context.validateOnly;
+    boolean invalidEscape = false;
+    // 第一个 \ 之后才创建, 已经包含 [startIndex, copied) 解码后的内容
+    StringBuilder sb = null;
+    int copied = startIndex;
+    int limit = context.stringLimit(startIndex);
+    int i = startIndex;
+    for (; ; i++) {
+      i = s.indexOfAnyBefore('"', '\\', '\n', i, limit);
+      if (i >= limit) {
+        index.set(limit - 1);
+        return ValueReaders.stringTooLong(s, originalStartIndex, startLine, startColumn, context);
+      }
+      if (!s.has(i)) {
+        break;
+      }
       char c = s.charAt(i);
-      
+
       if (c == '\n') {
-        line.incrementAndGet();
-      } else if (c == '"' && s.length() > i + 2 && s.charAt(i + 1) == '"' && s.charAt(i + 2) == '"'&& (s.charAt(i-1)!='\\')) {
-        endIndex = i;
-        index.addAndGet(2);
-        break;
+        index.newLine(i);
+        context.checkCancelled(index);
+      } else if (c == '"' && s.has(i + 2) && s.charAt(i + 1) == '"' && s.charAt(i + 2) == '"') {
+        index.set(i + 2);
+        if (invalidEscape) {
+          Results.Errors errors = new Results.Errors();
+          errors.invalidValue(context.identifier.getName(), Results.Errors.excerpt(s, originalStartIndex, i + 3), originalStartIndex, startLine, startColumn);
+          return errors;
+        }
+        if (!decode) {
+          return ValueReaders.VALIDATED_STRING;
+        }
+        if (sb == null) {
+          return s.substring(startIndex, i);
+        }
+        s.appendTo(sb, copied, i);
+        return sb.toString();
+      } else if (c == '\\') {
+        if (sb == null && decode) {
+          sb = new StringBuilder(i - startIndex + 16);
+        }
+        if (sb != null) {
+          s.appendTo(sb, copied, i);
+        }
+        int next = i + 1;
+        if (s.has(next) && isWhitespace(s.charAt(next))) {
+          // 行尾的 \ 去掉它后面所有的空白和换行
+          while (next < limit && s.has(next) && isWhitespace(s.charAt(next))) {
+            if (s.charAt(next) == '\n') {
+              index.newLine(next);
+            }
+            next++;
+          }
+        } else {
+          next = StringValueReaderWriter.unescape(s, i, sb);
+          if (next < 0) {
+            // 继续找到结束的 """, 被转义的字符不会结束字符串
+            invalidEscape = true;
+            decode = false;
+            sb = null;
+            next = i + 2;
+          }
+        }
+        copied = next;
+        i = next - 1;
       }
     }
-    
-    if (endIndex == -1) {
-      Results.Errors errors = new Results.Errors();
-      errors.unterminated(context.identifier.getName(), s.substring(originalStartIndex), startLine);
-      return errors;
-    }
 
-    s = s.substring(startIndex, endIndex);
-    s = s.replaceAll("\\\\\\s+", "");
-    s = StringValueReaderWriter.replaceSpecialCharactersAndUnicode(s);
+    index.set(i);
+    Results.Errors errors = new Results.Errors();
+    errors.unterminated(context.identifier.getName(), Results.Errors.excerpt(s, originalStartIndex), originalStartIndex, startLine, startColumn);
+    return errors;
+  }
 
-    return s;
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
   }
 
   private MultilineStringValueReader() {
@@ -0,0 +1,365 @@
+package com.moandjiezana.toml;
+
+import static com.moandjiezana.toml.ValueReaders.VALUE_READERS;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数组和内联表的 reader, 嵌套的数组和内联表是堆上的 Frame 链表, 不递归, 所以线程栈的大小不影响可以解析的深度
+ *
+ * 嵌套超过 ParseLimits.maxNestingDepth 层, 或者超过其它的限制的时候, 整个值返回一个错误
+ */
+final class NestedValueReader {
+
+  // Frame.read 和 Frame.accept 的结果
+  private static final int CONTINUE = 0;
+  // 当前字符开始了一个嵌套的数组或者内联表
+  private static final int OPEN = 1;
+  // Frame 已经结束, 结果在 Frame.value 中
+  private static final int CLOSED = 2;
+  // 超过了 ParseLimits, 不再读剩下的内容, 错误在 Frame.errors 中
+  private static final int ABORT = 3;
+
+  /**
+   * @param index 指向 [ 或者 { , 返回时指向最外层的 ] 或者 }
+   */
+  static Object read(TomlInput s, Cursor index, Context context) {
+    Frame outer = open(s, index, context, null);
+    Frame frame = outer;
+    int depth = 1;
+
+    for (int i = index.next(); ; i = index.next()) {
+      context.checkCancelled(index);
+      int status = s.has(i) ? frame.read(s, i, index, context) : frame.close(s, context, false);
+      if (status == OPEN) {
+        if (depth == context.limits.maxNestingDepth) {
+          outer.errors.tooDeep(outer.identifier.getName(), Results.Errors.excerpt(s, outer.startIndex), outer.startIndex, outer.startLine, outer.startColumn);
+          return abort(outer, outer.errors, context);
+        }
+        frame = open(s, index, context, frame);
+        depth++;
+        continue;
+      }
+      while (status == CLOSED) {
+        if (frame.parent == null) {
+          return frame.value;
+        }
+        Object value = frame.value;
+        frame = frame.parent;
+        depth--;
+        status = frame.accept(s, value, index, context);
+      }
+      if (status == ABORT) {
+        return abort(outer, frame.errors, context);
+      }
+    }
+  }
+
+  /**
+   * 恢复外层的 identifier, 错误报告在最外层的 key 上, 已经读到的元素都丢掉
+   */
+  private static Results.Errors abort(Frame outer, Results.Errors errors, Context context) {
+    context.identifier = outer.identifier;
+    return errors;
+  }
+
+  private static Frame open(TomlInput s, Cursor index, Context context, Frame parent) {
+    return s.charAt(index.get()) == '{' ? new TableFrame(index, context, parent) : new ArrayFrame(index, context, parent);
+  }
+
+  /**
+   * 一个还没有读完的数组或者内联表
+   */
+  private abstract static class Frame {
+    final int startIndex;
+    final int startLine;
+    final int startColumn;
+    // 开始这个值的 key
+    final Identifier identifier;
+    final Frame parent;
+    final Results.Errors errors = new Results.Errors();
+    Object value;
+
+    Frame(Cursor index, Context context, Frame parent) {
+      this.startIndex = index.get();
+      this.startLine = index.line();
+      this.startColumn = index.column(startIndex);
+      this.identifier = context.identifier;
+      this.parent = parent;
+    }
+
+    /**
+     * 读 i 处的字符, 不是数组和内联表的值直接读完并 accept
+     */
+    abstract int read(TomlInput s, int i, Cursor index, Context context);
+
+    /**
+     * 接收一个读完的元素或者值, index 指向它的最后一个字符
+     */
+    abstract int accept(TomlInput s, Object converted, Cursor index, Context context);
+
+    /**
+     * @param terminated false 表示输入已经结束
+     */
+    abstract int close(TomlInput s, Context context, boolean terminated);
+
+    int fail() {
+      value = errors;
+      return CLOSED;
+    }
+
+    /**
+     * @return 加入一个元素或者 entry 之后还在 ParseLimits.maxTotalNodes 之内
+     */
+    boolean addNode(Cursor index, Context context) {
+      if (context.addNode()) {
+        return true;
+      }
+      errors.tooManyNodes(index.get(), index.line(), index.column());
+      return false;
+    }
+  }
+
+  private static final class ArrayFrame extends Frame {
+
+    // 数组元素的类型, 由第一个元素决定, 之后的元素只比较类型
+    private static final int LONG = 0;
+    private static final int DOUBLE = 1;
+    private static final int BOOLEAN = 2;
+    private static final int ARRAY = 3;
+    private static final int TABLE = 4;
+    private static final int OTHER = 5;
+
+    private List<Object> items;
+    private int type = OTHER;
+    private boolean inComment;
+    // 只检查语法时 items 不保留所有的元素, 所以单独计数
+    private int length;
+
+    ArrayFrame(Cursor index, Context context, Frame parent) {
+      super(index, context, parent);
+    }
+
+    @Override
+    int read(TomlInput s, int i, Cursor index, Context context) {
+      char c = s.charAt(i);
+      if (c == '#' && !inComment) {
+        inComment = true;
+      } else if (c == '\n') {
+        inComment = false;
+        index.newLine(i);
+      } else if (inComment || Lexer.isWhitespace(c) || c == ',') {
+        return CONTINUE;
+      } else if (c == ']') {
+        return close(s, context, true);
+      } else if (c == '[' || c == '{') {
+        return OPEN;
+      } else {
+        Object converted = VALUE_READERS.convert(s, index, context);
+        if (converted instanceof Results.Errors && index.get() < i) {
+          // 第一个字符就出错的 reader 会退回到值之前, 从值的下一个字符继续, 否则会一直重复读同一个值
+          index.set(i);
+        }
+        return accept(s, converted, index, context);
+      }
+      return CONTINUE;
+    }
+
+    @Override
+    int accept(TomlInput s, Object converted, Cursor index, Context context) {
+      if (converted instanceof Results.Errors) {
+        // 继续读完数组, 找到它的结尾. 超过限制的时候不再读剩下的内容
+        errors.add((Results.Errors) converted);
+        return ((Results.Errors) converted).exceedsLimit() ? ABORT : CONTINUE;
+      }
+      if (++length > context.limits.maxArrayLength) {
+        errors.arrayTooLong(identifier.getName(), Results.Errors.excerpt(s, startIndex), startIndex, startLine, startColumn);
+        return ABORT;
+      }
+      if (!addNode(index, context)) {
+        return ABORT;
+      }
+      if (items == null) {
+        type = typeOf(converted);
+        items = newList(type);
+        add(items, type, converted);
+      } else if (type != typeOf(converted) || type == OTHER && !isSameClass(converted, items.get(0))) {
+        errors.heterogenous(identifier.getName(), index.get(), index.line(), index.column());
+      } else if (!context.validateOnly || type == TABLE) {
+        // 只检查语法时, 第一个值已经足够检查 heterogenous, 只有内联表需要全部保留, Results 会把它们变成 table array
+        add(items, type, converted);
+      }
+      return CONTINUE;
+    }
+
+    @Override
+    int close(TomlInput s, Context context, boolean terminated) {
+      if (!terminated) {
+        errors.unterminated(identifier.getName(), Results.Errors.excerpt(s, startIndex), startIndex, startLine, startColumn);
+      }
+      if (errors.hasErrors()) {
+        return fail();
+      }
+      if (items == null) {
+        value = new ArrayList<Object>();
+      } else {
+        if (items instanceof PrimitiveList) {
+          ((PrimitiveList<?>) items).trim();
+        }
+        value = items;
+      }
+      return CLOSED;
+    }
+
+    private static int typeOf(Object o) {
+      if (o instanceof Long) {
+        return LONG;
+      } else if (o instanceof Double) {
+        return DOUBLE;
+      } else if (o instanceof Boolean) {
+        return BOOLEAN;
+      } else if (o instanceof List) {
+        return ARRAY;
+      } else if (o instanceof Map) {
+        return TABLE;
+      }
+      return OTHER;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> newList(int type) {
+      switch (type) {
+        case LONG:
+          return (List<Object>) (List<?>) new PrimitiveList.Longs();
+        case DOUBLE:
+          return (List<Object>) (List<?>) new PrimitiveList.Doubles();
+        case BOOLEAN:
+          return (List<Object>) (List<?>) new PrimitiveList.Booleans();
+        default:
+          return new ArrayList<Object>();
+      }
+    }
+
+    private static void add(List<Object> items, int type, Object value) {
+      switch (type) {
+        case LONG:
+          ((PrimitiveList.Longs) (List<?>) items).add(((Long) value).longValue());
+          break;
+        case DOUBLE:
+          ((PrimitiveList.Doubles) (List<?>) items).add(((Double) value).doubleValue());
+          break;
+        case BOOLEAN:
+          ((PrimitiveList.Booleans) (List<?>) items).add(((Boolean) value).booleanValue());
+          break;
+        default:
+          items.add(value);
+      }
+    }
+
+    private static boolean isSameClass(Object o, Object first) {
+      return first.getClass().isAssignableFrom(o.getClass()) || o.getClass().isAssignableFrom(first.getClass());
+    }
+  }
+
+  private static final class TableFrame extends Frame {
+
+    private final LinkedHashMap<String, Object> results = new LinkedHashMap<String, Object>();
+    private boolean inKey = true;
+    private boolean inSearchEnd = true;
+    private boolean inValue;
+    private String currentKey;
+
+    TableFrame(Cursor index, Context context, Frame parent) {
+      super(index, context, parent);
+    }
+
+    @Override
+    int read(TomlInput s, int i, Cursor index, Context context) {
+      char c = s.charAt(i);
+      if (c == '\n') {
+        index.newLine(i);
+      }
+      if (inSearchEnd && c == '}') {
+        return close(s, context, true);
+      } else if (!Lexer.isWhitespace(c) && inKey) {
+        ReadKeyResult readKeyResult = GeneralStringKeyRead.readStrKeyAndMvIndexToEqualSplit(s, index);
+        String readStrKey = readKeyResult.key;
+        if (!readKeyResult.isValid) {
+          errors.invalidKey(readStrKey, i, index.line(), index.column(i));
+          return fail();
+        }
+        if (readStrKey == null) {
+          errors.unterminated(identifier.getName(), Results.Errors.excerpt(s, startIndex), startIndex, index.line(), index.column(startIndex));
+          return fail();
+        }
+        if (c == '\"' || c == '\'') {
+          currentKey = readStrKey;
+        } else if (Lexer.isDottedBareKey(readStrKey)) {
+          currentKey = readStrKey;
+        } else {
+          errors.invalidKey(readStrKey, i, index.line(), index.column(i));
+          return fail();
+        }
+        if (s.charAt(index.get()) != '=') {
+          throw new IllegalStateException();
+        }
+        inKey = false;
+        inValue = true;
+        inSearchEnd = false;
+      } else if (inValue && !Lexer.isWhitespace(c)) {
+        context.identifier = new Identifier(currentKey, Identifier.Type.KEY);
+        if (c == '[' || c == '{') {
+          return OPEN;
+        }
+        return accept(s, VALUE_READERS.convert(s, index, context), index, context);
+      } else if (c == ',') {
+        inKey = true;
+        inValue = false;
+        currentKey = null;
+      }
+      return CONTINUE;
+    }
+
+    @Override
+    int accept(TomlInput s, Object converted, Cursor index, Context context) {
+      context.identifier = identifier;
+      if (converted instanceof Results.Errors) {
+        errors.add((Results.Errors) converted);
+        return fail();
+      }
+      if (results.size() >= context.limits.maxKeysPerTable && !results.containsKey(currentKey)) {
+        errors.tooManyKeys(identifier.getName(), currentKey, index.line());
+        return ABORT;
+      }
+      if (!addNode(index, context)) {
+        return ABORT;
+      }
+      Object previous = results.put(currentKey, converted);
+      if (previous != null) {
+        errors.duplicateKey(currentKey, index.line());
+        return fail();
+      }
+      currentKey = null;
+      inValue = false;
+      inSearchEnd = true;
+      return CONTINUE;
+    }
+
+    @Override
+    int close(TomlInput s, Context context, boolean terminated) {
+      if (!terminated) {
+        errors.unterminated(identifier.getName(), Results.Errors.excerpt(s, startIndex), startIndex, startLine, startColumn);
+      }
+      if (errors.hasErrors()) {
+        return fail();
+      }
+      value = results;
+      return CLOSED;
+    }
+  }
+
+  private NestedValueReader() {}
+}
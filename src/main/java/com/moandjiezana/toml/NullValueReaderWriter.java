@@ -1,6 +1,5 @@
 package com.moandjiezana.toml;
 
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * support read write null value
@@ -11,21 +10,20 @@ class NullValueReaderWriter implements ValueReader, ValueWriter {
 
     private static final String NULL = "null";
     @Override
-    public boolean canRead(String s,int readStartIndex) {
-        boolean canRead = s.startsWith(NULL);
-        if (canRead) {
-            int nullEndIndex = readStartIndex + NULL.length();
-            if (s.length() > nullEndIndex) {
-                if (!Character.isWhitespace(nullEndIndex)) {
-                    canRead = false;
-                }
-            }
+    public boolean canRead(TomlInput s,int readStartIndex) {
+        if (!s.startsWith(NULL, readStartIndex)) {
+            return false;
         }
-        return canRead;
+        int nullEndIndex = readStartIndex + NULL.length();
+        if (!s.has(nullEndIndex)) {
+            return true;
+        }
+        char next = s.charAt(nullEndIndex);
+        return Character.isWhitespace(next) || next == ',' || next == ']' || next == '}' || next == '#';
     }
 
     @Override
-    public Object read(String s, AtomicInteger index, Context context) {
+    public Object read(TomlInput s, Cursor index, Context context) {
         int readStartIndex = index.get();
         if (!canRead(s, readStartIndex)) {
             throw new IllegalArgumentException();
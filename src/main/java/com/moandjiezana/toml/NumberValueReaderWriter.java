@@ -2,133 +2,254 @@ package com.moandjiezana.toml;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 class NumberValueReaderWriter implements ValueReader, ValueWriter {
   static final NumberValueReaderWriter NUMBER_VALUE_READER_WRITER = new NumberValueReaderWriter();
-  private static final Map<String,Double> SPECIAL_STRING_DOUBLE;
-  private static final Map<Double,String> SPECIAL_DOUBLE_STRING;
-  static {
-      Map<String, Double> stringDoubleMap = new HashMap<>();
-      stringDoubleMap.put("NaN", Double.NaN);
-      stringDoubleMap.put("+Infinity", Double.POSITIVE_INFINITY);
-      stringDoubleMap.put("-Infinity", Double.NEGATIVE_INFINITY);
-      SPECIAL_STRING_DOUBLE = Collections.unmodifiableMap(stringDoubleMap);
-      Map<Double, String> doubleString = new HashMap<>();
-      for (Map.Entry<String, Double> entry : stringDoubleMap.entrySet()) {
-          doubleString.put(entry.getValue(), entry.getKey());
-      }
-      SPECIAL_DOUBLE_STRING = Collections.unmodifiableMap(doubleString);
-  }
+  private static final String NAN = "NaN";
+  private static final String POSITIVE_INFINITY = "+Infinity";
+  private static final String NEGATIVE_INFINITY = "-Infinity";
+
+  private static final int INVALID = 0;
+  private static final int INTEGER = 1;
+  private static final int FLOAT = 2;
+  private static final int EXPONENT = 3;
+
+  // double 可以精确表示的 10 的幂
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  // 不超过 15 位的有效数字一定小于 2^53, 可以精确转换成 double
+  private static final int MAX_EXACT_DIGITS = 15;
+  // 不超过 18 位的整数一定在 long 的范围内, 可以先不转换
+  private static final int MAX_SAFE_LONG_DIGITS = 18;
+
   @Override
-  public boolean canRead(String s,int readStartIndex) {
+  public boolean canRead(TomlInput s,int readStartIndex) {
     char firstChar = s.charAt(readStartIndex);
-    boolean canRead = isMatchSpecialDouble(s, new AtomicInteger(readStartIndex),false)!=null;
-    if (!canRead) {
-        canRead =  firstChar == '+' || firstChar == '-' || Character.isDigit(firstChar);
-    }
-    return canRead;
+    return firstChar == '+' || firstChar == '-' || (firstChar >= '0' && firstChar <= '9') || matchSpecialDouble(s, readStartIndex) != null;
   }
 
-    private Double isMatchSpecialDouble(String s, AtomicInteger index,boolean isMoveIndex) {
-        int readStartIndex = index.get();
-        Double value =null;
-        String mathKey =null;
-        for (Map.Entry<String, Double> entry : SPECIAL_STRING_DOUBLE.entrySet()) {
-            String matchStr = entry.getKey();
-            int matchEndIndex = readStartIndex + matchStr.length();
-            if (s.startsWith(matchStr,readStartIndex)) {
-                if (matchEndIndex < s.length()) {
-                    if (Character.isWhitespace(s.charAt(matchEndIndex))) {
-                        mathKey = matchStr;
-                        value= entry.getValue();
-                        break;
-                    }
-                } else {
-                    mathKey = matchStr;
-                    value= entry.getValue();
-                    break;
-                }
-            }
+    /**
+     * @return 匹配到的 NaN +Infinity -Infinity, 没有匹配到则为 null
+     */
+    private String matchSpecialDouble(TomlInput s, int readStartIndex) {
+        char c = s.charAt(readStartIndex);
+        String matchStr = c == 'N' ? NAN : c == '+' ? POSITIVE_INFINITY : c == '-' ? NEGATIVE_INFINITY : null;
+        if (matchStr == null) {
+            return null;
         }
-        if (isMoveIndex && mathKey != null) {
-            index.set(readStartIndex + mathKey.length()-1);
+        int matchEndIndex = readStartIndex + matchStr.length();
+        if (s.startsWith(matchStr, readStartIndex) && (!s.has(matchEndIndex) || Character.isWhitespace(s.charAt(matchEndIndex)))) {
+            return matchStr;
         }
-        return value;
+        return null;
     }
 
-    @Override
-  public Object read(String s, AtomicInteger index, Context context) {
-    Double specialDouble = isMatchSpecialDouble(s, index,true);
+  @Override
+  public Object read(TomlInput s, Cursor index, Context context) {
+    return read(s, index, context, false);
+  }
+
+  /**
+   * 只检查语法, 返回的 {@link LazyValue} 在第一次访问的时候才用 parseLong 或 parseDouble 转换.
+   * 超过 18 位的整数可能超出 long 的范围, 仍然在解析的时候转换, 这样超出范围的错误还是在解析的时候报告
+   */
+  Object readLazily(TomlInput s, Cursor index, Context context) {
+    return read(s, index, context, true);
+  }
+
+  private Object read(TomlInput s, Cursor index, Context context, boolean lazy) {
+    String specialDouble = matchSpecialDouble(s, index.get());
     if (specialDouble != null) {
-            return specialDouble;
+        index.advance(specialDouble.length() - 1);
+        return specialDouble == NAN ? Double.NaN : specialDouble == POSITIVE_INFINITY ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
     }
     boolean signable = true;
     boolean dottable = false;
     boolean exponentable = false;
     boolean terminatable = false;
     boolean underscorable = false;
-    String type = "";
-    StringBuilder sb = new StringBuilder();
+    int type = INVALID;
+    int digits = 0;
+    int start = index.get();
 
-    for (int i = index.get(); i < s.length(); i = index.incrementAndGet()) {
+    for (int i = index.get(); s.has(i); i = index.next()) {
       char c = s.charAt(i);
-      boolean notLastChar = s.length() > i + 1;
+      boolean notLastChar = s.has(i + 1);
 
-      if (Character.isDigit(c)) {
-        sb.append(c);
+      if (c >= '0' && c <= '9') {
+        digits++;
         signable = false;
         terminatable = true;
-        if (type.isEmpty()) {
-          type = "integer";
+        if (type == INVALID) {
+          type = INTEGER;
           dottable = true;
         }
         underscorable = notLastChar;
-        exponentable = !type.equals("exponent");
+        exponentable = type != EXPONENT;
       } else if ((c == '+' || c == '-') && signable && notLastChar) {
         signable = false;
         terminatable = false;
-        if (c == '-') {
-          sb.append('-');
-        }
       } else if (c == '.' && dottable && notLastChar) {
-        sb.append('.');
-        type = "float";
+        type = FLOAT;
         terminatable = false;
         dottable = false;
         exponentable = false;
         underscorable = false;
       } else if ((c == 'E' || c == 'e') && exponentable && notLastChar) {
-        sb.append('E');
-        type = "exponent";
+        type = EXPONENT;
         terminatable = false;
         signable = true;
         dottable = false;
         exponentable = false;
         underscorable = false;
-      } else if (c == '_' && underscorable && notLastChar && Character.isDigit(s.charAt(i + 1))) {
+      } else if (c == '_' && underscorable && notLastChar && isDigit(s.charAt(i + 1))) {
         underscorable = false;
       } else {
         if (!terminatable) {
-          type = "";
+          type = INVALID;
         }
-        index.decrementAndGet();
+        index.back();
         break;
       }
     }
 
-      if (type.equals("integer")) {
-          return new BigDecimal(sb.toString()).longValue();
-      } else if( type.equals("float") || type.equals("exponent")){
-          return new BigDecimal(sb.toString()).doubleValue();
-      } else {
-          Results.Errors errors = new Results.Errors();
-          errors.invalidValue(context.identifier.getName(), sb.toString(), context.line.get());
-          return errors;
+      // 读到结尾的时候 index 在最后一个字符之后
+      int end = s.has(index.get()) ? index.get() + 1 : index.get();
+      if (type == INTEGER) {
+          if (lazy && !context.validateOnly && digits <= MAX_SAFE_LONG_DIGITS) {
+              return LazyValue.of(s, start, end, LazyValue.INTEGER);
+          }
+          Long value = parseLong(s, start, end);
+          if (value != null) {
+              return value;
+          }
+      } else if (type != INVALID) {
+          if (context.validateOnly) {
+              return ValueReaders.VALIDATED_FLOAT;
+          }
+          return lazy ? LazyValue.of(s, start, end, LazyValue.FLOAT) : (Object) parseDouble(s, start, end);
+      }
+      Results.Errors errors = new Results.Errors();
+      errors.invalidValue(context.identifier.getName(), Results.Errors.excerpt(s, start, end), start, index.line(), index.column(start));
+      return errors;
+  }
+
+  /**
+   * 和 Long.parseLong 一样在负数范围内累加, 所以 Long.MIN_VALUE 也可以表示
+   *
+   * @param s 已经检查过语法的整数, 可以有符号和 _
+   * @return null 超出 long 的范围
+   */
+  static Long parseLong(TomlInput s, int start, int end) {
+    int i = start;
+    boolean negative = s.charAt(i) == '-';
+    if (negative || s.charAt(i) == '+') {
+      i++;
+    }
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long multiplyLimit = limit / 10;
+    long result = 0;
+    for (; i < end; i++) {
+      char c = s.charAt(i);
+      if (c == '_') {
+        continue;
+      }
+      int digit = c - '0';
+      if (result < multiplyLimit) {
+        return null;
+      }
+      result *= 10;
+      if (result < limit + digit) {
+        return null;
+      }
+      result -= digit;
+    }
+    return negative ? result : -result;
+  }
+
+  /**
+   * 有效数字不超过 15 位, 10 的指数不超过 22 的时候, 有效数字和 10 的幂都可以精确表示, 一次乘除就是正确舍入的结果.
+   * 其它情况交给 Double.parseDouble
+   *
+   * @param s 已经检查过语法的小数, 可以有符号, 指数和 _
+   */
+  static double parseDouble(TomlInput s, int start, int end) {
+    int i = start;
+    boolean negative = s.charAt(i) == '-';
+    if (negative || s.charAt(i) == '+') {
+      i++;
+    }
+    long significand = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean fraction = false;
+    for (; i < end; i++) {
+      char c = s.charAt(i);
+      if (c == '_') {
+        continue;
+      }
+      if (c == '.') {
+        fraction = true;
+        continue;
+      }
+      if (c == 'e' || c == 'E') {
+        break;
+      }
+      if (fraction) {
+        exponent--;
+      }
+      // 开头的 0 不是有效数字
+      if (significand == 0 && c == '0') {
+        continue;
+      }
+      if (++digits > MAX_EXACT_DIGITS) {
+        return parseDoubleSlowly(s, start, end);
+      }
+      significand = significand * 10 + (c - '0');
+    }
+    if (i < end) {
+      boolean negativeExponent = s.charAt(++i) == '-';
+      if (negativeExponent || s.charAt(i) == '+') {
+        i++;
+      }
+      int explicitExponent = 0;
+      for (; i < end; i++) {
+        char c = s.charAt(i);
+        if (c != '_' && explicitExponent < 10000) {
+          explicitExponent = explicitExponent * 10 + (c - '0');
+        }
+      }
+      exponent += negativeExponent ? -explicitExponent : explicitExponent;
+    }
+    double value;
+    if (significand == 0) {
+      value = 0;
+    } else if (exponent < -22 || exponent > 22) {
+      return parseDoubleSlowly(s, start, end);
+    } else if (exponent < 0) {
+      value = significand / POWERS_OF_TEN[-exponent];
+    } else {
+      value = significand * POWERS_OF_TEN[exponent];
+    }
+    return negative ? -value : value;
+  }
+
+  private static double parseDoubleSlowly(TomlInput s, int start, int end) {
+    char[] chars = new char[end - start];
+    int length = 0;
+    for (int i = start; i < end; i++) {
+      char c = s.charAt(i);
+      if (c != '_') {
+        chars[length++] = c;
       }
+    }
+    return Double.parseDouble(new String(chars, 0, length));
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
   }
 
   @Override
@@ -141,9 +262,11 @@ class NumberValueReaderWriter implements ValueReader, ValueWriter {
       if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte || value instanceof BigDecimal || value instanceof BigInteger) {
           context.write(value.toString());
       } else if (value instanceof Double) {
-          String s = SPECIAL_DOUBLE_STRING.get(value);
-          if (s!=null) {
-              context.write(s);
+          double d = (Double) value;
+          if (Double.isNaN(d)) {
+              context.write(NAN);
+          } else if (Double.isInfinite(d)) {
+              context.write(d > 0 ? POSITIVE_INFINITY : NEGATIVE_INFINITY);
           } else {
               //String s1 = new BigDecimal(value.toString()).toString();
               //context.write(s1);
@@ -0,0 +1,186 @@
+package com.moandjiezana.toml;
+
+/**
+ * <p>Bounds on the size of a document read by {@link Toml}, checked while it is parsed, so that an oversized document
+ * is rejected as soon as it crosses a limit instead of after it has been read into memory.</p>
+ *
+ * <p>Only arrays and inline tables are limited by default, to {@link #DEFAULT_MAX_NESTING_DEPTH} levels.
+ * A document that crosses a limit makes read throw a {@link com.moandjiezana.toml.exception.TomlParseException}
+ * whose error has one of the codes listed on each setter of {@link Builder}.</p>
+ *
+ * <pre><code>
+ * ParseLimits limits = new ParseLimits.Builder()
+ *   .maxDocumentLength(1024 * 1024)
+ *   .maxStringLength(64 * 1024)
+ *   .maxTotalNodes(100000)
+ *   .build();
+ * Toml toml = new Toml().limits(limits).read(reader);
+ * </code></pre>
+ */
+public final class ParseLimits {
+
+  public static final int DEFAULT_MAX_NESTING_DEPTH = 256;
+
+  /**
+   * No limits except the default nesting depth.
+   */
+  public static final ParseLimits DEFAULT = new Builder().build();
+
+  public static class Builder {
+    private int maxDocumentLength = Integer.MAX_VALUE;
+    private int maxStringLength = Integer.MAX_VALUE;
+    private int maxArrayLength = Integer.MAX_VALUE;
+    private int maxKeysPerTable = Integer.MAX_VALUE;
+    private int maxTotalNodes = Integer.MAX_VALUE;
+    private int maxNestingDepth = DEFAULT_MAX_NESTING_DEPTH;
+    private int maxTableArrayElements = Integer.MAX_VALUE;
+
+    public Builder() {}
+
+    Builder(ParseLimits limits) {
+      this.maxDocumentLength = limits.maxDocumentLength;
+      this.maxStringLength = limits.maxStringLength;
+      this.maxArrayLength = limits.maxArrayLength;
+      this.maxKeysPerTable = limits.maxKeysPerTable;
+      this.maxTotalNodes = limits.maxTotalNodes;
+      this.maxNestingDepth = limits.maxNestingDepth;
+      this.maxTableArrayElements = limits.maxTableArrayElements;
+    }
+
+    /**
+     * @param chars the most characters, or bytes for UTF-8 input, in the document. Otherwise {@link TomlError.Code#DOCUMENT_TOO_LONG}.
+     * @return this ParseLimits.Builder instance
+     */
+    public ParseLimits.Builder maxDocumentLength(int chars) {
+      this.maxDocumentLength = positive("maxDocumentLength", chars);
+
+      return this;
+    }
+
+    /**
+     * @param chars the most characters, or bytes for UTF-8 input, between the quotes of a string value. Otherwise {@link TomlError.Code#STRING_TOO_LONG}.
+     * @return this ParseLimits.Builder instance
+     */
+    public ParseLimits.Builder maxStringLength(int chars) {
+      this.maxStringLength = positive("maxStringLength", chars);
+
+      return this;
+    }
+
+    /**
+     * @param elements the most elements in one array. Otherwise {@link TomlError.Code#ARRAY_TOO_LONG}.
+     * @return this ParseLimits.Builder instance
+     */
+    public ParseLimits.Builder maxArrayLength(int elements) {
+      this.maxArrayLength = positive("maxArrayLength", elements);
+
+      return this;
+    }
+
+    /**
+     * @param keys the most keys, including sub-tables, in one table or inline table. Otherwise {@link TomlError.Code#TOO_MANY_KEYS}.
+     * @return this ParseLimits.Builder instance
+     */
+    public ParseLimits.Builder maxKeysPerTable(int keys) {
+      this.maxKeysPerTable = positive("maxKeysPerTable", keys);
+
+      return this;
+    }
+
+    /**
+     * @param nodes the most key/value pairs, table headers, array elements and inline table entries in the document.
+     *   Otherwise {@link TomlError.Code#TOO_MANY_NODES}.
+     * @return this ParseLimits.Builder instance
+     */
+    public ParseLimits.Builder maxTotalNodes(int nodes) {
+      this.maxTotalNodes = positive("maxTotalNodes", nodes);
+
+      return this;
+    }
+
+    /**
+     * @param levels how deeply arrays and inline tables may be nested, the outermost being level 1. Otherwise {@link TomlError.Code#NESTING_TOO_DEEP}.
+     * @return this ParseLimits.Builder instance
+     */
+    public ParseLimits.Builder maxNestingDepth(int levels) {
+      this.maxNestingDepth = positive("maxNestingDepth", levels);
+
+      return this;
+    }
+
+    /**
+     * @param elements the most tables in one table array, from [[table array]] headers or an array of inline tables.
+     *   Otherwise {@link TomlError.Code#TOO_MANY_TABLE_ARRAY_ELEMENTS}.
+     * @return this ParseLimits.Builder instance
+     */
+    public ParseLimits.Builder maxTableArrayElements(int elements) {
+      this.maxTableArrayElements = positive("maxTableArrayElements", elements);
+
+      return this;
+    }
+
+    public ParseLimits build() {
+      return new ParseLimits(this);
+    }
+
+    private static int positive(String name, int limit) {
+      if (limit < 1) {
+        throw new IllegalArgumentException(name + " must be at least 1: " + limit);
+      }
+      return limit;
+    }
+  }
+
+  final int maxDocumentLength;
+  final int maxStringLength;
+  final int maxArrayLength;
+  final int maxKeysPerTable;
+  final int maxTotalNodes;
+  final int maxNestingDepth;
+  final int maxTableArrayElements;
+
+  private ParseLimits(Builder builder) {
+    this.maxDocumentLength = builder.maxDocumentLength;
+    this.maxStringLength = builder.maxStringLength;
+    this.maxArrayLength = builder.maxArrayLength;
+    this.maxKeysPerTable = builder.maxKeysPerTable;
+    this.maxTotalNodes = builder.maxTotalNodes;
+    this.maxNestingDepth = builder.maxNestingDepth;
+    this.maxTableArrayElements = builder.maxTableArrayElements;
+  }
+
+  public int getMaxDocumentLength() {
+    return maxDocumentLength;
+  }
+
+  public int getMaxStringLength() {
+    return maxStringLength;
+  }
+
+  public int getMaxArrayLength() {
+    return maxArrayLength;
+  }
+
+  public int getMaxKeysPerTable() {
+    return maxKeysPerTable;
+  }
+
+  public int getMaxTotalNodes() {
+    return maxTotalNodes;
+  }
+
+  public int getMaxNestingDepth() {
+    return maxNestingDepth;
+  }
+
+  public int getMaxTableArrayElements() {
+    return maxTableArrayElements;
+  }
+
+  /**
+   * 节点数只能在一次顺序解析中计数, 所以设置了 maxTotalNodes 的文档不并行解析
+   */
+  boolean countsNodes() {
+    return maxTotalNodes != Integer.MAX_VALUE;
+  }
+}
@@ -0,0 +1,69 @@
+package com.moandjiezana.toml;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * TomlParser 的选项, 不可变, 修改时返回新的实例
+ */
+final class ParseOptions {
+
+  static final ParseOptions DEFAULT = new ParseOptions(false, true, null, false, false, ParseLimits.DEFAULT, null, null);
+  static final ParseOptions VALIDATE = new ParseOptions(true, false, null, false, false, ParseLimits.DEFAULT, null, null);
+
+  // 只检查语法和 Results 中的重复检查, 值用 ValueReaders 中的 VALIDATED_* 代替, 不解码
+  final boolean validateOnly;
+  // false 的时候不截取注释, Container.Table 也不会创建 commentMap
+  final boolean keepComments;
+  // null 表示解析所有的值
+  final Projection projection;
+  // 日期返回 java.time 的 OffsetDateTime, LocalDateTime, LocalDate 和 LocalTime
+  final boolean javaTime;
+  // 出现错误后跳到下一行继续解析, 收集所有的错误, 而不是在第一个错误处停止
+  final boolean recover;
+  // 解析时检查的文档大小的限制
+  final ParseLimits limits;
+  // 不是 null 的时候解析中定期检查, 取消后抛出 TomlCancelledException
+  final CancellationToken cancellation;
+  // 不是 null 的时候大文档切分后在它上面并行解析, 见 ChunkedParser
+  final ExecutorService executor;
+
+  private ParseOptions(boolean validateOnly, boolean keepComments, Projection projection, boolean javaTime, boolean recover, ParseLimits limits,
+      CancellationToken cancellation, ExecutorService executor) {
+    this.validateOnly = validateOnly;
+    this.keepComments = keepComments;
+    this.projection = projection;
+    this.javaTime = javaTime;
+    this.recover = recover;
+    this.limits = limits;
+    this.cancellation = cancellation;
+    this.executor = executor;
+  }
+
+  ParseOptions keepComments(boolean keepComments) {
+    return new ParseOptions(validateOnly, keepComments, projection, javaTime, recover, limits, cancellation, executor);
+  }
+
+  ParseOptions projection(Projection projection) {
+    return new ParseOptions(validateOnly, keepComments, projection, javaTime, recover, limits, cancellation, executor);
+  }
+
+  ParseOptions javaTime(boolean javaTime) {
+    return new ParseOptions(validateOnly, keepComments, projection, javaTime, recover, limits, cancellation, executor);
+  }
+
+  ParseOptions recover(boolean recover) {
+    return new ParseOptions(validateOnly, keepComments, projection, javaTime, recover, limits, cancellation, executor);
+  }
+
+  ParseOptions limits(ParseLimits limits) {
+    return new ParseOptions(validateOnly, keepComments, projection, javaTime, recover, limits, cancellation, executor);
+  }
+
+  ParseOptions cancellation(CancellationToken cancellation) {
+    return new ParseOptions(validateOnly, keepComments, projection, javaTime, recover, limits, cancellation, executor);
+  }
+
+  ParseOptions executor(ExecutorService executor) {
+    return new ParseOptions(validateOnly, keepComments, projection, javaTime, recover, limits, cancellation, executor);
+  }
+}
@@ -0,0 +1,254 @@
+package com.moandjiezana.toml;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * 整数, 浮点数和布尔值数组的 List, 值保存在 long[], double[] 和 boolean[] 中, get 的时候才装箱
+ *
+ * 和 ArrayList 一样可以修改和序列化, equals 和 hashCode 按元素和其它 List 比较. 但是只能加入同一类的值:
+ * 整数数组可以加入 Long, Integer, Short 和 Byte, 浮点数数组可以加入 Double 和 Float, 布尔数组只能加入 Boolean.
+ * 其它的值抛出 ClassCastException, null 抛出 NullPointerException, 数组都不会被修改
+ *
+ * add 和 set 在这里用泛型参数实现, 擦除后是 Object, 不会在子类的桥方法里先被强制转换成 Long
+ */
+abstract class PrimitiveList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+  private static final long serialVersionUID = 1L;
+  private static final int INITIAL_CAPACITY = 8;
+
+  int size;
+
+  abstract Object array();
+
+  abstract int capacity();
+
+  abstract void resize(int capacity);
+
+  /**
+   * @throws NullPointerException value 是 null
+   * @throws ClassCastException value 不能保存在这个数组中
+   */
+  abstract void check(Object value);
+
+  /**
+   * value 已经 {@link #check(Object)} 过了
+   */
+  abstract void store(int index, Object value);
+
+  @Override
+  public E set(int index, E value) {
+    checkIndex(index);
+    check(value);
+    E old = get(index);
+    store(index, value);
+    return old;
+  }
+
+  @Override
+  public void add(int index, E value) {
+    check(value);
+    open(index);
+    store(index, value);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public E remove(int index) {
+    E old = get(index);
+    System.arraycopy(array(), index + 1, array(), index, size - index - 1);
+    size--;
+    modCount++;
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    modCount++;
+  }
+
+  /**
+   * 读完之后去掉增长时多出来的容量
+   */
+  void trim() {
+    if (capacity() - size > INITIAL_CAPACITY) {
+      resize(size);
+    }
+  }
+
+  /**
+   * 只有调用者的 add 和 set 会用到, 解析时用的是 add(long) 这样不装箱的方法
+   */
+  static void checkType(Object value, String type, Class<?>... classes) {
+    if (value == null) {
+      throw new NullPointerException("An array of " + type + " cannot contain null");
+    }
+    for (Class<?> c : classes) {
+      if (value.getClass() == c) {
+        return;
+      }
+    }
+    throw new ClassCastException("An array of " + type + " cannot contain " + value.getClass().getName());
+  }
+
+  void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  /**
+   * 在 index 处空出一个位置
+   */
+  void open(int index) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    int capacity = capacity();
+    if (size == capacity) {
+      resize(Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1)));
+    }
+    System.arraycopy(array(), index, array(), index + 1, size - index);
+    size++;
+    modCount++;
+  }
+
+  static final class Longs extends PrimitiveList<Long> {
+    private long[] values = new long[INITIAL_CAPACITY];
+
+    @Override
+    public Long get(int index) {
+      checkIndex(index);
+      return values[index];
+    }
+
+    @Override
+    void check(Object value) {
+      checkType(value, "integers", Long.class, Integer.class, Short.class, Byte.class);
+    }
+
+    @Override
+    void store(int index, Object value) {
+      values[index] = ((Number) value).longValue();
+    }
+
+    void add(long value) {
+      open(size);
+      values[size - 1] = value;
+    }
+
+    long[] toLongArray() {
+      return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    Object array() {
+      return values;
+    }
+
+    @Override
+    int capacity() {
+      return values.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+  }
+
+  static final class Doubles extends PrimitiveList<Double> {
+    private double[] values = new double[INITIAL_CAPACITY];
+
+    @Override
+    public Double get(int index) {
+      checkIndex(index);
+      return values[index];
+    }
+
+    @Override
+    void check(Object value) {
+      checkType(value, "floats", Double.class, Float.class);
+    }
+
+    @Override
+    void store(int index, Object value) {
+      values[index] = ((Number) value).doubleValue();
+    }
+
+    void add(double value) {
+      open(size);
+      values[size - 1] = value;
+    }
+
+    double[] toDoubleArray() {
+      return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    Object array() {
+      return values;
+    }
+
+    @Override
+    int capacity() {
+      return values.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+  }
+
+  static final class Booleans extends PrimitiveList<Boolean> {
+    private boolean[] values = new boolean[INITIAL_CAPACITY];
+
+    @Override
+    public Boolean get(int index) {
+      checkIndex(index);
+      return values[index];
+    }
+
+    @Override
+    void check(Object value) {
+      checkType(value, "booleans", Boolean.class);
+    }
+
+    @Override
+    void store(int index, Object value) {
+      values[index] = (Boolean) value;
+    }
+
+    void add(boolean value) {
+      open(size);
+      values[size - 1] = value;
+    }
+
+    boolean[] toBooleanArray() {
+      return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    Object array() {
+      return values;
+    }
+
+    @Override
+    int capacity() {
+      return values.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+  }
+}
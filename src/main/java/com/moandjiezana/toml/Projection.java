@@ -0,0 +1,63 @@
+package com.moandjiezana.toml;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 只解析选中的 key 路径, 例如 "database.*", "servers[*].ip"
+ *
+ * 路径用 . 分隔, * 匹配任意一个 key, [*] 表示 table array 的每一个元素, 匹配时和不写一样.
+ * 一个路径选中它下面的所有值, 也会保留通往它的 table
+ */
+final class Projection {
+
+  private static final String ANY = "*";
+  private static final String ANY_ELEMENT = "[*]";
+
+  private final List<String[]> patterns;
+
+  private Projection(List<String[]> patterns) {
+    this.patterns = patterns;
+  }
+
+  static Projection compile(Collection<String> paths) {
+    List<String[]> patterns = new ArrayList<String[]>(paths.size());
+    for (String path : paths) {
+      String[] segments = path.split("\\.", -1);
+      for (int i = 0; i < segments.length; i++) {
+        String segment = segments[i].trim();
+        if (segment.endsWith(ANY_ELEMENT)) {
+          segment = segment.substring(0, segment.length() - ANY_ELEMENT.length());
+        }
+        if (segment.isEmpty()) {
+          throw new IllegalArgumentException("Invalid path: " + path);
+        }
+        segments[i] = segment;
+      }
+      patterns.add(segments);
+    }
+    return new Projection(patterns);
+  }
+
+  /**
+   * @param tablePath 当前 table 的名字
+   * @param key null 表示 table 本身
+   * @return 路径在某个选中的路径下面, 或者是通往它的 table
+   */
+  boolean includes(List<String> tablePath, String key) {
+    int length = tablePath.size() + (key == null ? 0 : 1);
+    for (String[] pattern : patterns) {
+      int n = Math.min(length, pattern.length);
+      boolean matches = true;
+      for (int i = 0; i < n && matches; i++) {
+        String name = i < tablePath.size() ? tablePath.get(i) : key;
+        matches = pattern[i].equals(ANY) || pattern[i].equals(name);
+      }
+      if (matches) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,16 @@
+package com.moandjiezana.toml;
+
+/**
+ * {@link GeneralStringKeyRead#readStrKeyAndMvIndexToEqualSplit} 的结果
+ */
+class ReadKeyResult {
+    //可能为null
+    final String key;
+    //是否有效
+    final boolean isValid;
+
+    ReadKeyResult(String key, boolean isValid) {
+        this.key = key;
+        this.isValid = isValid;
+    }
+}
\ No newline at end of file
@@ -1,126 +1,209 @@
 package com.moandjiezana.toml;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+
+import com.moandjiezana.toml.exception.TomlParseException;
 
 public class Results {
 
     final Container.Table rootTable;
 
+    /**
+     * 只记录错误的类型, 位置和 key, 需要的时候才拼接成文字. 文档中的内容最多截取 MAX_EXCERPT 个字符
+     */
     static class Errors {
-    
-    private final StringBuilder sb = new StringBuilder();
+
+    static final int MAX_EXCERPT = 40;
+
+    // 超过 ParseLimits 的错误, 出现之后不再读剩下的内容
+    private static final Set<TomlError.Code> LIMITS = EnumSet.of(TomlError.Code.NESTING_TOO_DEEP, TomlError.Code.DOCUMENT_TOO_LONG,
+      TomlError.Code.STRING_TOO_LONG, TomlError.Code.ARRAY_TOO_LONG, TomlError.Code.TOO_MANY_KEYS, TomlError.Code.TOO_MANY_NODES,
+      TomlError.Code.TOO_MANY_TABLE_ARRAY_ELEMENTS);
+
+    private List<TomlError> errors;
+
+    /**
+     * @return [start, end) 的内容, 超过 MAX_EXCERPT 的部分用 ... 代替
+     */
+    static String excerpt(TomlInput s, int start, int end) {
+      if (end - start > MAX_EXCERPT) {
+        return s.substring(start, start + MAX_EXCERPT) + "...";
+      }
+      return s.substring(start, end);
+    }
+
+    /**
+     * 和 excerpt(s, start, s.length()) 一样, 但是不会读到文档的结尾
+     */
+    static String excerpt(TomlInput s, int start) {
+      int end = start;
+      while (end - start <= MAX_EXCERPT && s.has(end)) {
+        end++;
+      }
+      return excerpt(s, start, end);
+    }
+
+    private static String cap(String text) {
+      return text.length() > MAX_EXCERPT ? text.substring(0, MAX_EXCERPT) + "..." : text;
+    }
+
+    private void add(TomlError.Code code, String key, String excerpt, int offset, int line, int column) {
+      if (errors == null) {
+        errors = new ArrayList<TomlError>(2);
+      }
+      errors.add(new TomlError(code, key, excerpt, offset, line, column));
+    }
     
     void duplicateTable(String table, int line) {
-      sb.append("Duplicate table definition on line ")
-        .append(line)
-        .append(" ")
-        .append(table);
+      add(TomlError.Code.DUPLICATE_TABLE, table, null, -1, line, -1);
     }
 
-    public void tableDuplicatesKey(String table, AtomicInteger line) {
-      sb.append("Key already exists for table defined on line ")
-        .append(line.get())
-        .append(": [")
-        .append(table)
-        .append("]");
+    public void tableDuplicatesKey(String table, int line) {
+      add(TomlError.Code.TABLE_DUPLICATES_KEY, table, null, -1, line, -1);
     }
 
-    public void keyDuplicatesTable(String key, AtomicInteger line) {
-      sb.append("Table already exists for key defined on line ")
-        .append(line.get())
-        .append(": ")
-        .append(key);
+    public void keyDuplicatesTable(String key, int line) {
+      add(TomlError.Code.KEY_DUPLICATES_TABLE, key, null, -1, line, -1);
     }
 
-    
-    void invalidTable(String table, int line) {
-      sb.append("Invalid table definition on line ")
-        .append(line)
-        .append(": ")
-        .append(table);
+    void invalidTable(String table, int offset, int line, int column) {
+      add(TomlError.Code.INVALID_TABLE, null, cap(table), offset, line, column);
     }
     
     void duplicateKey(String key, int line) {
-      sb.append("Duplicate key");
-      if (line > -1) {
-        sb.append(" on line ")
-          .append(line);
-      }
-      sb.append(": ")
-        .append(key);
+      add(TomlError.Code.DUPLICATE_KEY, key, null, -1, line, -1);
     }
     
-    void invalidTextAfterIdentifier(Identifier identifier, char text, int line) {
-      sb.append("Invalid text after key ")
-        .append(identifier.getName())
-        .append(" on line ")
-        .append(line)
-        .append(". Make sure to terminate the value or add a comment (#).");
+    void invalidTextAfterIdentifier(Identifier identifier, char text, int offset, int line, int column) {
+      add(TomlError.Code.INVALID_TEXT_AFTER_VALUE, identifier.getName(), String.valueOf(text), offset, line, column);
     }
     
-    void invalidKey(String key, int line) {
-      sb.append("Invalid key on line ")
-        .append(line)
-        .append(": ")
-        .append(key);
+    void invalidKey(String key, int offset, int line, int column) {
+      add(TomlError.Code.INVALID_KEY, null, key == null ? null : cap(key), offset, line, column);
     }
     
-    void invalidTableArray(String tableArray, int line) {
-      sb.append("Invalid table array definition on line ")
-        .append(line)
-        .append(": ")
-        .append(tableArray);
+    void invalidTableArray(String tableArray, int offset, int line, int column) {
+      add(TomlError.Code.INVALID_TABLE_ARRAY, null, cap(tableArray), offset, line, column);
     }
     
-    void invalidValue(String key, String value, int line) {
-      sb.append("Invalid value on line ")
-        .append(line)
-        .append(": ")
-        .append(key)
-        .append(" = ")
-        .append(value);
+    void invalidValue(String key, String value, int offset, int line, int column) {
+      add(TomlError.Code.INVALID_VALUE, key, cap(value), offset, line, column);
     }
     
-    void unterminatedKey(String key, int line) {
-      sb.append("Key is not followed by an equals sign on line ")
-        .append(line)
-        .append(": ")
-        .append(key);
+    void unterminatedKey(String key, int offset, int line, int column) {
+      add(TomlError.Code.UNTERMINATED_KEY, null, cap(key), offset, line, column);
     }
     
-    void unterminated(String key, String value, int line) {
-      sb.append("Unterminated value on line ")
-        .append(line)
-        .append(": ")
-        .append(key)
-        .append(" = ")
-        .append(value.trim());
+    void unterminated(String key, String value, int offset, int line, int column) {
+      add(TomlError.Code.UNTERMINATED_VALUE, key, cap(value), offset, line, column);
+    }
+
+    public void heterogenous(String key, int offset, int line, int column) {
+      add(TomlError.Code.HETEROGENEOUS_ARRAY, key, null, offset, line, column);
+    }
+
+    void tooDeep(String key, String value, int offset, int line, int column) {
+      add(TomlError.Code.NESTING_TOO_DEEP, key, cap(value), offset, line, column);
+    }
+
+    /**
+     * @param maxLength 第一个超出的字符的索引
+     */
+    void documentTooLong(int maxLength) {
+      add(TomlError.Code.DOCUMENT_TOO_LONG, null, null, maxLength, -1, -1);
     }
 
-    public void heterogenous(String key, int line) {
-      sb.append(key)
-        .append(" becomes a heterogeneous array on line ")
-        .append(line);
+    void stringTooLong(String key, String value, int offset, int line, int column) {
+      add(TomlError.Code.STRING_TOO_LONG, key, cap(value), offset, line, column);
+    }
+
+    void arrayTooLong(String key, String value, int offset, int line, int column) {
+      add(TomlError.Code.ARRAY_TOO_LONG, key, cap(value), offset, line, column);
+    }
+
+    /**
+     * @param table 已经满了的 table 的名字, 根 table 是 ""
+     * @param key 加不进去的 key
+     */
+    void tooManyKeys(String table, String key, int line) {
+      add(TomlError.Code.TOO_MANY_KEYS, key, table, -1, line, -1);
+    }
+
+    void tooManyNodes(int offset, int line, int column) {
+      add(TomlError.Code.TOO_MANY_NODES, null, null, offset, line, column);
+    }
+
+    void tooManyTableArrayElements(String tableArray, int line) {
+      add(TomlError.Code.TOO_MANY_TABLE_ARRAY_ELEMENTS, tableArray, null, -1, line, -1);
     }
     
     boolean hasErrors() {
-      return sb.length() > 0;
+      return errors != null;
+    }
+
+    int size() {
+      return errors == null ? 0 : errors.size();
+    }
+
+    /**
+     * 只保留前 size 个错误
+     */
+    void truncate(int size) {
+      if (errors != null && errors.size() > size) {
+        errors.subList(size, errors.size()).clear();
+      }
+    }
+
+    boolean exceedsLimit() {
+      if (errors != null) {
+        for (TomlError error : errors) {
+          if (LIMITS.contains(error.getCode())) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    List<TomlError> list() {
+      return errors == null ? Collections.<TomlError>emptyList() : errors;
+    }
+
+    TomlParseException toException() {
+      return new TomlParseException(new ArrayList<TomlError>(list()));
     }
     
     @Override
     public String toString() {
+      StringBuilder sb = new StringBuilder();
+      for (TomlError error : list()) {
+        error.appendTo(sb);
+      }
       return sb.toString();
     }
 
     public void add(Errors other) {
-      sb.append(other.sb);
+      if (other.errors == null) {
+        return;
+      }
+      if (errors == null) {
+        errors = new ArrayList<TomlError>(other.errors.size());
+      }
+      errors.addAll(other.errors);
     }
   }
   
   final Errors errors = new Errors();
   private final Deque<Container> stack = new ArrayDeque<Container>();
+  // stack 中有 TableArray, 只在 startTables 和 startTableArray 中改变
+  private boolean inTableArray;
+  // stack.peek() 的名字是 header 的前 headerLength 个 key 加上 inlineKeys, 只在报告 TOO_MANY_KEYS 时拼接
+  private Keys.Key[] header = new Keys.Key[0];
+  private int headerLength;
+  private final Deque<String> inlineKeys = new ArrayDeque<String>();
   private String lastComment;
+  // 由 TomlParser 设置, 检查每个 table 的 key 数和 table array 的元素个数
+  ParseLimits limits = ParseLimits.DEFAULT;
 
     public String getLastComment() {
         return lastComment;
@@ -136,7 +219,7 @@ public class Results {
         stack.push(rootTable);
   }
 
-  void addValue(Identifier identifier,String key, Object value, AtomicInteger line) {
+  void addValue(Identifier identifier,String key, Object value, int line) {
     Container currentTable = stack.peek();
       String beforeComment = null;
       String rightComment = null;
@@ -145,25 +228,14 @@ public class Results {
           rightComment = identifier.getRightComment();
       }
     if (value instanceof Map) {
-     List<String> keysInLine = getInlineTablePath(key);
-      if (keysInLine == null) {
-        startTable(identifier,key, line);
-      } else if (keysInLine.isEmpty()) {
-          List<String> keys = new ArrayList<>();
-          keys.add(key);
-          startTables(new Identifier(keys, Identifier.Type.TABLE), line);
-      } else {
-        startTables(new Identifier(keysInLine, Identifier.Type.TABLE), line);
-      }
-      @SuppressWarnings("unchecked")
-      Map<String, Object> valueMap = (Map<String, Object>) value;
-      for (Map.Entry<String, Object> entry : valueMap.entrySet()) {
-        addValue(null,entry.getKey(), entry.getValue(), line);
-      }
-      stack.pop();
+      addInlineTables(identifier, key, value, line);
     } else if (currentTable.accepts(key)) {
-        if (identifier!=null && identifier.isTableArray()) {
-            currentTable.put(key, value, "", "");
+        if (isFull(currentTable, key)) {
+            errors.tooManyKeys(currentTableName(), key, line);
+        } else if (isTableArray(value) && ((List<?>) value).size() > limits.maxTableArrayElements) {
+            errors.tooManyTableArrayElements(key, line);
+        } else if (identifier!=null && identifier.isTableArray()) {
+            currentTable.put(key, value, null, null);
         } else {
             currentTable.put(key, value, beforeComment, rightComment);
         }
@@ -171,12 +243,12 @@ public class Results {
       if (currentTable.get(key) instanceof Container) {
         errors.keyDuplicatesTable(key, line);
       } else {
-        errors.duplicateKey(key, line != null ? line.get() : -1);
+        errors.duplicateKey(key, line);
       }
     }
   }
 
-  void startTableArray(Identifier identifier, AtomicInteger line) {
+  void startTableArray(Identifier identifier, int line) {
       String beforeComment = null;
       String rightComment = null;
       if (identifier != null) {
@@ -187,17 +259,25 @@ public class Results {
     while (stack.size() > 1) {
       stack.pop();
     }
+    inTableArray = false;
 
     Keys.Key[] tableParts = identifier.getKeys();
     for (int i = 0; i < tableParts.length; i++) {
       String tablePart = tableParts[i].name;
       Container currentContainer = stack.peek();
+      header = tableParts;
+      headerLength = i;
 
       if (currentContainer.get(tablePart) instanceof Container.TableArray) {
         Container.TableArray currentTableArray = (Container.TableArray) currentContainer.get(tablePart);
         stack.push(currentTableArray);
+        inTableArray = true;
 
         if (i == tableParts.length - 1) {
+          if (currentTableArray.getTableValue().size() >= limits.maxTableArrayElements) {
+            errors.tooManyTableArrayElements(tableName, line);
+            break;
+          }
           currentTableArray.put(tablePart, new Container.Table(),beforeComment, rightComment);
         }
 
@@ -213,34 +293,40 @@ public class Results {
 
         if (newContainer instanceof Container.TableArray) {
           stack.push(((Container.TableArray) newContainer).getCurrent());
+          inTableArray = true;
         }
       } else {
-        errors.duplicateTable(tableName, line.get());
+        errors.duplicateTable(tableName, line);
         break;
       }
     }
+    headerLength = tableParts.length;
   }
 
-  void startTables(Identifier id, AtomicInteger line) {
+  void startTables(Identifier id, int line) {
     String tableName = id.getBareName();
     
     while (stack.size() > 1) {
       stack.pop();
     }
+    inTableArray = false;
 
     Keys.Key[] tableParts = id.getKeys();
     for (int i = 0; i < tableParts.length; i++) {
       String tablePart = tableParts[i].name;
       Container currentContainer = stack.peek();
+      header = tableParts;
+      headerLength = i;
       if (currentContainer.get(tablePart) instanceof Container) {
         Container nextTable = (Container) currentContainer.get(tablePart);
         if (i == tableParts.length - 1 && !nextTable.isImplicit()) {
-          errors.duplicateTable(tableName, line.get());
+          errors.duplicateTable(tableName, line);
           return;
         }
         stack.push(nextTable);
         if (stack.peek() instanceof Container.TableArray) {
           stack.push(((Container.TableArray) stack.peek()).getCurrent());
+          inTableArray = true;
         }
       } else if (currentContainer.accepts(tablePart)) {
           Identifier startTableId = id;
@@ -253,6 +339,39 @@ public class Results {
         break;
       }
     }
+    headerLength = tableParts.length;
+  }
+
+  /**
+   * @return stack.peek() 的名字, 根 table 是 ""
+   */
+  private String currentTableName() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < headerLength; i++) {
+      sb.append(sb.length() == 0 ? "" : ".").append(header[i].name);
+    }
+    for (Iterator<String> keys = inlineKeys.descendingIterator(); keys.hasNext(); ) {
+      sb.append(sb.length() == 0 ? "" : ".").append(keys.next());
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return currentTable 中已经有 maxKeysPerTable 个 key, 不能再加入新的 key
+   */
+  private boolean isFull(Container currentTable, String key) {
+    if (!(currentTable instanceof Container.Table)) {
+      return false;
+    }
+    Map<String, Object> values = ((Container.Table) currentTable).getTableValues();
+    return values.size() >= limits.maxKeysPerTable && !values.containsKey(key);
+  }
+
+  /**
+   * @return value 是内联表的数组, Container.Table 会把它变成 table array
+   */
+  private static boolean isTableArray(Object value) {
+    return value instanceof List && !((List<?>) value).isEmpty() && ((List<?>) value).get(0) instanceof Map;
   }
 
   /**
@@ -270,7 +389,7 @@ public class Results {
         return (Container.Table) values;
     }
 
-    private Container startTable(Identifier identifier,String tableName, AtomicInteger line) {
+    private Container startTable(Identifier identifier,String tableName, int line) {
     Container newTable = new Container.Table(tableName);
     addValue(identifier,tableName, newTable, line);
     stack.push(newTable);
@@ -278,7 +397,7 @@ public class Results {
     return newTable;
   }
 
-  private Container startTable(Identifier identifier,String tableName, boolean implicit, AtomicInteger line) {
+  private Container startTable(Identifier identifier,String tableName, boolean implicit, int line) {
     Container newTable = new Container.Table(tableName, implicit);
     addValue(identifier,tableName, newTable, line);
     stack.push(newTable);
@@ -286,29 +405,87 @@ public class Results {
     return newTable;
   }
   
-  private List<String> getInlineTablePath(String key) {
-    Iterator<Container> descendingIterator = stack.descendingIterator();
-    List<String> keys = new ArrayList<>();
-    while (descendingIterator.hasNext()) {
-      Container next = descendingIterator.next();
-      if (next instanceof Container.TableArray) {
-        return null;
+  /**
+   * 内联表和其中嵌套的内联表变成 table. 每一层的 entry 迭代器保存在 ArrayDeque 中, 不递归
+   */
+  private void addInlineTables(Identifier identifier, String key, Object value, int line) {
+    Deque<Iterator<Map.Entry<String, Object>>> entries = new ArrayDeque<Iterator<Map.Entry<String, Object>>>();
+    if (!startInlineTable(identifier, key, line)) {
+      return;
+    }
+    entries.push(entries(value));
+    inlineKeys.push(key);
+    while (!entries.isEmpty()) {
+      Iterator<Map.Entry<String, Object>> iterator = entries.peek();
+      if (!iterator.hasNext()) {
+        entries.pop();
+        stack.pop();
+        inlineKeys.pop();
+        continue;
       }
-      
-      Container.Table table = (Container.Table) next;
-        if (table == this.rootTable) {
-            continue;
-        }
-      if (table.name == null) {
-        break;
+      Map.Entry<String, Object> entry = iterator.next();
+      if (!(entry.getValue() instanceof Map)) {
+        addValue(null, entry.getKey(), entry.getValue(), line);
+      } else if (startInlineTable(null, entry.getKey(), line)) {
+        entries.push(entries(entry.getValue()));
+        inlineKeys.push(entry.getKey());
       }
+    }
+  }
 
-      keys.add(table.name);
+  @SuppressWarnings("unchecked")
+  private static Iterator<Map.Entry<String, Object>> entries(Object map) {
+    return ((Map<String, Object>) map).entrySet().iterator();
+  }
 
+  /**
+   * @return false 出现了错误, 没有压栈
+   */
+  private boolean startInlineTable(Identifier identifier, String key, int line) {
+    if (inTableArray) {
+      startTable(identifier, key, line);
+      return true;
     }
+    return startInlineTable(key, line);
+  }
 
-      keys.add(key);
+  /**
+   * 在当前的 table 中开始内联表 key, 和 startTables(当前 table 的路径 + key) 的结果一样, 但是不会从根重新查找整个路径,
+   * 所以嵌套的内联表和很深的 [table] 下面的内联表都是线性的
+   *
+   * @return false 出现了错误, 没有压栈
+   */
+  private boolean startInlineTable(String key, int line) {
+    Container currentContainer = stack.peek();
+    Object existing = currentContainer.get(key);
+    if (existing instanceof Container) {
+      Container nextTable = (Container) existing;
+      if (!nextTable.isImplicit()) {
+        errors.duplicateTable(inlineTableName(key), line);
+        return false;
+      }
+      stack.push(nextTable);
+    } else if (currentContainer.accepts(key)) {
+      startTable(null, key, false, line);
+    } else {
+      errors.tableDuplicatesKey(key, line);
+      return false;
+    }
+    return true;
+  }
 
-      return keys;
+  /**
+   * 只在报告错误的时候拼接完整的名字
+   */
+  private String inlineTableName(String key) {
+    StringBuilder name = new StringBuilder();
+    Iterator<Container> descendingIterator = stack.descendingIterator();
+    while (descendingIterator.hasNext()) {
+      Container.Table table = (Container.Table) descendingIterator.next();
+      if (table != rootTable && table.name != null) {
+        name.append(table.name).append('.');
+      }
+    }
+    return name.append(key).toString();
   }
 }
\ No newline at end of file
@@ -2,8 +2,6 @@ package com.moandjiezana.toml;
 
 import java.net.URI;
 import java.net.URL;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Pattern;
 
 /**
  * 读 以 " 开头的 字符串
@@ -11,17 +9,11 @@ import java.util.regex.Pattern;
 class StringValueReaderWriter implements ValueReader, ValueWriter {
   
   static final StringValueReaderWriter STRING_VALUE_READER_WRITER = new StringValueReaderWriter();
+  // scan 遇到不合法的转义时的返回值
+  private static final Object INVALID_ESCAPE = new Object();
+  // scan 在 limit 之前没有找到结束的 " 时的返回值
+  private static final Object TOO_LONG = new Object();
   static private final String[] specialCharacterEscapes = new String[93];
-  static private final boolean[] PLAIN_KEY_ALLOWED_CHARS_ARRAY;
-
-
-  public static boolean isQuoteKey(char c) {
-      if (c < PLAIN_KEY_ALLOWED_CHARS_ARRAY.length ) {
-          return PLAIN_KEY_ALLOWED_CHARS_ARRAY[c];
-      }
-      return false;
-  }
-  static final Pattern QUOTE_KEY_PATTEN = Pattern.compile("^[a-z0-9A-Z_-]+$");
   static {
     specialCharacterEscapes['\b'] = "\\b";
     specialCharacterEscapes['\t'] = "\\t";
@@ -30,15 +22,6 @@ class StringValueReaderWriter implements ValueReader, ValueWriter {
     specialCharacterEscapes['\r'] = "\\r";
     specialCharacterEscapes['"'] = "\\\"";
     specialCharacterEscapes['\\'] = "\\\\";
-      String PLAIN_KEY_ALLOWED_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz1234567890_-";
-      int arrLength = 0;
-      for (int i = 0; i < PLAIN_KEY_ALLOWED_CHARS.length(); i++) {
-          arrLength = Math.max(arrLength, PLAIN_KEY_ALLOWED_CHARS.charAt(i));
-      }
-      PLAIN_KEY_ALLOWED_CHARS_ARRAY = new boolean[arrLength+1];
-      for (int i = 0; i < PLAIN_KEY_ALLOWED_CHARS.length(); i++) {
-          PLAIN_KEY_ALLOWED_CHARS_ARRAY[PLAIN_KEY_ALLOWED_CHARS.charAt(i)] = true;
-      }
   }
 
     public static boolean isNeedEscapesCharacter(char c) {
@@ -49,7 +32,7 @@ class StringValueReaderWriter implements ValueReader, ValueWriter {
     }
 
     public static String quoteKey(String stringKey) {
-        boolean shouldEscape = !QUOTE_KEY_PATTEN.matcher(stringKey).matches();
+        boolean shouldEscape = !Lexer.isBareKey(stringKey);
 
         if (shouldEscape) {
             StringBuilder builder = new StringBuilder();
@@ -70,199 +53,188 @@ class StringValueReaderWriter implements ValueReader, ValueWriter {
     }
 
   @Override
-  public boolean canRead(String s,int readStartIndex) {
+  public boolean canRead(TomlInput s,int readStartIndex) {
     return s.startsWith("\"",readStartIndex);
   }
 
 
+  @Override
+  public Object read(TomlInput s, Cursor index, Context context) {
+      return read(s, index, context, false);
+  }
+
     /**
-     * 判断 s.charAt(charIndex) 是不是转义字符 \ 注意两个\\ 转义字符标识为\
-     * 所以 charIndex 往前搜索连续的 \ 的数量为基数则为转义字符,偶数则不是转义字符
-     * @param s
-     * @param startIndex 从charIndex往前搜索的终止索引
-     * @param charIndex
-     * @return
+     * 没有转义字符的字符串只记录位置, 有转义字符的还是马上解码, 这样非法的转义在解析的时候就会报错
      */
-    private static boolean isEscChar(String s, int startIndex,int charIndex) {
-        if (charIndex < startIndex) {
-            throw new IllegalArgumentException();
-        }
-        if (charIndex < 0 || charIndex >= s.length()) {
-            throw new IndexOutOfBoundsException();
-        }
-        char escChar = '\\';
-        if (s.charAt(charIndex)!=escChar) {
-            return false;
+    Object readLazily(TomlInput s, Cursor index, Context context) {
+        return read(s, index, context, true);
+    }
+
+    private Object read(TomlInput s, Cursor index, Context context, boolean lazy) {
+        int start = index.get();
+        int line = index.line();
+        Object result = scan(s, index, !context.validateOnly, lazy, context.stringLimit(start + 1));
+        if (result == TOO_LONG) {
+            return ValueReaders.stringTooLong(s, start, line, index.column(start), context);
         }
-        int escCharCount = 1;
-        int searchEscCharIndex = charIndex-1;
-        while (searchEscCharIndex >= startIndex && s.charAt(searchEscCharIndex) == escChar) {
-            escCharCount++;
-            searchEscCharIndex--;
+        if (result == null) {
+            Results.Errors errors = new Results.Errors();
+            errors.unterminated(context.identifier.getName(), Results.Errors.excerpt(s, start, index.get()), start, index.line(), index.column(start));
+            return errors;
         }
-        if (escCharCount % 2 == 0) {
-            return false;
-        } else {
-            return true;
+        if (result == INVALID_ESCAPE) {
+            Results.Errors errors = new Results.Errors();
+            errors.invalidValue(context.identifier.getName(), Results.Errors.excerpt(s, start, index.get() + 1), start, index.line(), index.column(start));
+            return errors;
         }
+        return result;
+    }
 
+    /**
+     * 自动读取 以 " 开头和结尾的  的字符串读取 自动处理转义
+     * @return  不合法的字符串则为 null, 包括不合法的转义, 由调用者报告 invalidKey 或 invalidTable
+     */
+    public static String readStr(TomlInput s, Cursor index) {
+        if (s.charAt(index.get()) != '\"') {
+            throw new IllegalArgumentException();
+        }
+        Object result = scan(s, index, true, false, Integer.MAX_VALUE);
+        return result == INVALID_ESCAPE ? null : (String) result;
     }
 
     /**
-     *  在  { 123123"1234567\"89" } 中的字符串中从 第一个 " 开始 往后找到最后一个"的索引 中间遇到换行符 \n 直接结束
-     * @param s
-     * @param startIndex 开始搜索的第一个索引 在 开始的 " 之后的一个索引
-     * @return >0则为 找到结束符 " 否则没有找到结束符
+     * 从开始的 " 往后扫描一次, 找到结束的 " 的同时处理转义.
+     * 没有转义的时候不创建 StringBuilder, 只截取一次或者只记录位置
+     *
+     * @param decode false 的时候只检查, 返回 {@link ValueReaders#VALIDATED_STRING}
+     * @param lazy 没有转义的时候返回 LazyValue
+     * @param limit 结束的 " 必须在 limit 之前, 不会读 limit 之后的内容
+     * @return 解码的结果, index 在结束的 " ; null 没有结束的 " , index 在换行符或者结尾;
+     *         INVALID_ESCAPE 不合法的转义, index 在结束的 " ; TOO_LONG limit 之前没有结束的 "
      */
-    private static int findEndIndex(String s, int startIndex) {
-        int i;
-        for (i = startIndex; i < s.length(); i++) {
-            char ch = s.charAt(i);
-            if (ch == '\n') {
-                return -i;
+    private static Object scan(TomlInput s, Cursor index, boolean decode, boolean lazy, int limit) {
+        int contentStart = index.get() + 1;
+        // 第一个转义字符之后才创建, 已经包含 [contentStart, copied) 解码后的内容
+        StringBuilder sb = null;
+        int copied = contentStart;
+        boolean invalidEscape = false;
+        int i = contentStart;
+        for (; ; i++) {
+            i = s.indexOfAnyBefore('"', '\\', '\n', i, limit);
+            if (i >= limit) {
+                index.set(limit - 1);
+                return TOO_LONG;
             }
-            if (ch == '"') {
-                int charBeforeIndex = i - 1;
-                if ((charBeforeIndex < startIndex) || !isEscChar(s, startIndex, charBeforeIndex)) {
-                    //搜索到结束索引
-                    return i;
+            if (!s.has(i)) {
+                break;
+            }
+            char c = s.charAt(i);
+            if (c == '"') {
+                index.set(i);
+                if (invalidEscape) {
+                    return INVALID_ESCAPE;
+                }
+                if (!decode) {
+                    return ValueReaders.VALIDATED_STRING;
+                }
+                if (sb == null) {
+                    return lazy ? LazyValue.of(s, contentStart, i, LazyValue.STRING) : s.substring(contentStart, i);
                 }
+                s.appendTo(sb, copied, i);
+                return sb.toString();
+            }
+            if (c == '\n') {
+                break;
+            }
+            if (c == '\\' && !invalidEscape) {
+                if (sb == null && decode) {
+                    sb = new StringBuilder(i - contentStart + 16);
+                }
+                if (sb != null) {
+                    s.appendTo(sb, copied, i);
+                }
+                int next = unescape(s, i, sb);
+                if (next < 0) {
+                    invalidEscape = true;
+                } else {
+                    copied = next;
+                    i = next - 1;
+                }
+            } else if (c == '\\') {
+                // 出错以后只需要找到结束的 "
+                i++;
             }
         }
-        return -i;
+        index.set(i);
+        return null;
     }
-  @Override
-  public Object read(String s, AtomicInteger index, Context context) {
-      int start = index.get();
-      String result = readStr(s, index);
-    if (result ==null) {
-        Results.Errors errors = new Results.Errors();
-        errors.unterminated(context.identifier.getName(), s.substring(start, index.get()), context.line.get());
-        return errors;
-    }
-
-    return result;
-  }
 
     /**
-     * 自动读取 以 " 开头和结尾的  的字符串读取 自动处理转义
-     * @return  不合法的字符串则为
+     * 解码 s.charAt(i) 开始的转义序列
+     *
+     * @param sb null 的时候只检查
+     * @return 转义序列之后的索引, 不合法的转义为 -1
      */
-    public static String readStr(String s, AtomicInteger index) {
-        int startIndex = index.get();
-        if (s.charAt(startIndex) != '\"') {
-            throw new IllegalArgumentException();
-        }
-        index.incrementAndGet();
-        int endIndex = findEndIndex(s, index.get());
-        index.set(Math.abs(endIndex));
-        if (endIndex < 0) {
-
-            return null;
+    static int unescape(TomlInput s, int i, StringBuilder sb) {
+        if (!s.has(i + 1)) {
+            return -1;
         }
-        String raw = s.substring(startIndex+1, endIndex);
-        s = replaceSpecialCharactersAndUnicode(raw);
-        return s;
-    }
-    private  String replaceUnicodeCharacters(String value) {
-      StringBuilder builder = new StringBuilder();
-      char ecsChar = '\\';
-      char u = 'u';
-      for (int i = 0; i < value.length(); i++) {
-          char c = value.charAt(i);
-          if (c == ecsChar && i+1<value.length() && value.charAt(i+1)== u && isEscChar(value,0,i)) {
-            //  if (i == 0 || (value.charAt(i - 1) != ecsChar)) {
-                  String errmsg = "错误的unicode转义字符: ";
-                  if (i < value.length() - 5) {
-                      String ecsUnicode = value.substring(i + 2, i + 6);
-                      String regex = "[0-9a-fA-F]{4}";
-                      if (ecsUnicode.matches(regex)) {
-                          builder.append(new String(Character.toChars(Integer.parseInt(ecsUnicode, 16))));
-                          i = i + 5;
-                          continue;
-                      } else {
-                          throw new IllegalStateException(errmsg + value.substring(i, i + 6));
-                      }
-                  } else {
-
-                      throw new IllegalStateException(errmsg + value.substring(i));
-                  }
-             // }
-          }
-          builder.append(c);
-      }
-      return builder.toString();
-  }
-
-  static String replaceSpecialCharactersAndUnicode(String s) {
-      StringBuilder builder = new StringBuilder();
-
-    for (int i = 0; i < s.length(); i++) {
-      char ch = s.charAt(i);
-        final char escChar = '\\';
-        int nextCharIndex = i + 1;
-        if (ch == escChar && nextCharIndex >= s.length()) {
-            throw new IllegalStateException("invalid string: can not end with \\" + s);
+        char decoded;
+        switch (s.charAt(i + 1)) {
+            case '\\':
+                decoded = '\\';
+                break;
+            case 'b':
+                decoded = '\b';
+                break;
+            case 'f':
+                decoded = '\f';
+                break;
+            case 'n':
+                decoded = '\n';
+                break;
+            case 't':
+                decoded = '\t';
+                break;
+            case 'r':
+                decoded = '\r';
+                break;
+            case '"':
+                decoded = '"';
+                break;
+            case 'u':
+                int codePoint = 0;
+                for (int j = i + 2; j < i + 6; j++) {
+                    int digit = s.has(j) ? hexDigit(s.charAt(j)) : -1;
+                    if (digit < 0) {
+                        return -1;
+                    }
+                    codePoint = codePoint * 16 + digit;
+                }
+                if (sb != null) {
+                    sb.append((char) codePoint);
+                }
+                return i + 6;
+            default:
+                return -1;
         }
-        if (ch == escChar && nextCharIndex<s.length()) {
-            char next = s.charAt(i + 1);
-            i++;
-            switch (next) {
-                case escChar:
-                    builder.append("\\");
-                    break;
-                case 'b':
-                    builder.append("\b");
-                    break;
-                case 'f':
-                    builder.append("\f");
-                    break;
-                case 'n':
-                    builder.append("\n");
-                    break;
-                case 't':
-                    builder.append("\t");
-                    break;
-                case 'r':
-                    builder.append("\r");
-                    break;
-                case 'u':
-                    builder.append(readEcsUnicode(s, i - 1));
-                    i=i+4;
-                    break;
-                case '\"':
-                    builder.append("\"");
-                    break;
-                default:
-                    throw new IllegalStateException("invalid string: " + s);
-            }
-        }else{
-            builder.append(ch);
+        if (sb != null) {
+            sb.append(decoded);
         }
+        return i + 2;
     }
-      s = builder.toString();
-
-      return s;
-  }
 
-    protected static String readEcsUnicode(String value,int i) {
-        char ecsChar = '\\';
-        char u = 'u';
-        if (value.charAt(i) != ecsChar || value.charAt(i+1) != u) {
-            throw new IllegalArgumentException();
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
         }
-        String errmsg = "错误的unicode转义字符: ";
-        if (i < value.length() - 5) {
-            String ecsUnicode = value.substring(i + 2, i + 6);
-            String regex = "[0-9a-fA-F]{4}";
-            if (ecsUnicode.matches(regex)) {
-                return new String(Character.toChars(Integer.parseInt(ecsUnicode, 16)));
-            } else {
-                throw new IllegalStateException(errmsg + value.substring(i, i + 6));
-            }
-        } else {
-            throw new IllegalStateException(errmsg + value.substring(i));
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
         }
+        return -1;
     }
 
   @Override
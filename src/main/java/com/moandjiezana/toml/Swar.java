@@ -0,0 +1,59 @@
+package com.moandjiezana.toml;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 字节源一次读 8 个字节, 用 long 的位运算查找 \n, " , ' , \ , # 这样的 ASCII 字符 (SWAR)
+ *
+ * 非 ASCII 的字节最高位是 1, 不会和要找的字符相同
+ */
+final class Swar {
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGHS = 0x8080808080808080L;
+
+  /**
+   * @return 每个字节都是 c 的 long
+   */
+  static long pattern(char c) {
+    return (c & 0xFF) * ONES;
+  }
+
+  /**
+   * 等于 pattern 的字节的最高位为 1. 第一个等于 pattern 的字节后面可能有误报, 但最低的那一位一定准确
+   */
+  static long matches(long word, long pattern) {
+    long x = word ^ pattern;
+    return (x - ONES) & ~x & HIGHS;
+  }
+
+  /**
+   * a, b, c 是 ASCII 字符, 只找一个或两个字符时重复传入
+   *
+   * @param bytes 必须是 little endian 的, 这样最低的匹配就是最前面的字节
+   * @param from bytes 中的绝对索引
+   * @return [from, end) 中第一个等于 a, b 或 c 的索引, 没有的话返回 end
+   */
+  static int indexOfAny(ByteBuffer bytes, int from, int end, char a, char b, char c) {
+    long pa = pattern(a);
+    long pb = pattern(b);
+    long pc = pattern(c);
+    int i = from;
+    for (; i <= end - 8; i += 8) {
+      long word = bytes.getLong(i);
+      long found = matches(word, pa) | matches(word, pb) | matches(word, pc);
+      if (found != 0) {
+        return i + (Long.numberOfTrailingZeros(found) >>> 3);
+      }
+    }
+    for (; i < end; i++) {
+      byte x = bytes.get(i);
+      if (x == a || x == b || x == c) {
+        return i;
+      }
+    }
+    return end;
+  }
+
+  private Swar() {}
+}
@@ -2,7 +2,12 @@ package com.moandjiezana.toml;
 
 import java.io.*;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
@@ -43,9 +48,11 @@ public final class Toml {
     }
 
   private static final Gson DEFAULT_GSON = new Gson();
+  static final int STREAM_WINDOW_SIZE = 8192;
 
 
   TomlContainer tomlContainer;
+  private ParseOptions options = ParseOptions.DEFAULT;
 
   /**
    * Creates Toml instance with no defaults.
@@ -54,6 +61,110 @@ public final class Toml {
     this(new Container.Table());
   }
 
+  /**
+   * Restricts the following calls to read(...) to the given key paths. Values outside of them are checked for syntax,
+   * but are neither decoded nor stored.
+   *
+   * <p>Paths are dot-separated. <code>*</code> matches any single key and a <code>[*]</code> suffix marks a table array,
+   * for example <code>select("database.*", "servers[*].ip")</code>. A path selects everything below it.
+   * Duplicate keys and tables are only detected within the selected paths.</p>
+   *
+   * @param paths the key paths to keep. No paths means the whole document.
+   * @return this instance
+   * @throws IllegalArgumentException If a path contains an empty key
+   */
+  public Toml select(String... paths) {
+    this.options = options.projection(paths.length == 0 ? null : Projection.compile(Arrays.asList(paths)));
+
+    return this;
+  }
+
+  /**
+   * Controls whether the following calls to read(...) keep the comments of the document, so that writing this instance
+   * reproduces them. Comments are kept by default. Turn this off when the values are only read, to skip copying the
+   * comments and lower the memory held by this instance.
+   *
+   * @param keepComments false to drop comments while parsing
+   * @return this instance
+   */
+  public Toml keepComments(boolean keepComments) {
+    this.options = options.keepComments(keepComments);
+
+    return this;
+  }
+
+  /**
+   * Controls whether the following calls to read(...) return dates as java.time values instead of {@link Date}.
+   * Offset date-times become {@link java.time.OffsetDateTime}. Local date-times, local dates and local times, which are
+   * rejected otherwise, become {@link java.time.LocalDateTime}, {@link java.time.LocalDate} and {@link java.time.LocalTime}.
+   * Requires Java 8 or later.
+   *
+   * @param useJavaTime true to read java.time values
+   * @return this instance
+   */
+  public Toml useJavaTime(boolean useJavaTime) {
+    this.options = options.javaTime(useJavaTime);
+
+    return this;
+  }
+
+  /**
+   * Sets how deeply arrays and inline tables may be nested in the following calls to read(...). The outermost array or
+   * inline table is level 1 and the default is 256. Nested values are parsed without recursion, so the limit does not
+   * depend on the thread's stack size. A deeper value makes read throw a
+   * {@link com.moandjiezana.toml.exception.TomlParseException} with {@link TomlError.Code#NESTING_TOO_DEEP}.
+   * The other limits set through {@link #limits(ParseLimits)} are kept.
+   *
+   * @param maxNestingDepth at least 1
+   * @return this instance
+   */
+  public Toml maxNestingDepth(int maxNestingDepth) {
+    this.options = options.limits(new ParseLimits.Builder(options.limits).maxNestingDepth(maxNestingDepth).build());
+
+    return this;
+  }
+
+  /**
+   * Makes the following calls to read(...) stop when token is cancelled or its deadline passes, throwing a
+   * {@link com.moandjiezana.toml.exception.TomlCancelledException}. The values this instance held before the read are kept.
+   *
+   * @param token checked periodically while parsing, or null to never stop
+   * @return this instance
+   */
+  public Toml cancellation(CancellationToken token) {
+    this.options = options.cancellation(token);
+
+    return this;
+  }
+
+  /**
+   * Sets the limits checked while the following calls to read(...) parse a document. See {@link ParseLimits}.
+   *
+   * @param limits replaces the limits set before, including the nesting depth
+   * @return this instance
+   */
+  public Toml limits(ParseLimits limits) {
+    this.options = options.limits(limits);
+
+    return this;
+  }
+
+  /**
+   * Lets the following calls to read(...) parse large documents on several threads. A document of 2M characters or more
+   * that is not read from a {@link Reader} is split at its top-level table headers, and the pieces are submitted to
+   * executor while the calling thread waits for them. A document with an error is parsed again on the calling thread,
+   * so that the errors are the same as in a sequential read. Documents with a {@link ParseLimits.Builder#maxTotalNodes(int)}
+   * limit are always parsed sequentially. The executor is not shut down by this instance.
+   *
+   * @param executor runs the pieces of large documents, or null, the default, to parse every document on the calling thread
+   * @return this instance
+   */
+  public Toml parallel(ExecutorService executor) {
+    this.options = options.executor(executor);
+
+    return this;
+  }
+
   /**
    * Populates the current Toml instance with values from file.
    *
@@ -95,33 +206,159 @@ public final class Toml {
    * @throws IllegalStateException If file contains invalid TOML
    */
   public Toml read(Reader reader) {
-      String tomlString = readToTomlString(reader);
-      read(tomlString);
+    this.tomlContainer = readerToTomlContainer(reader);
+
     return this;
   }
 
-    private String readToTomlString(Reader reader) {
-        BufferedReader bufferedReader = null;
-        StringBuilder w = new StringBuilder();
-        try {
-          bufferedReader = new BufferedReader(reader);
+  /**
+   * Populates the current Toml instance with values from bytes, without decoding the whole document first.
+   *
+   * @param bytes TOML encoded as UTF-8
+   * @return this instance
+   * @throws IllegalStateException If bytes contain invalid TOML
+   */
+  public Toml read(byte[] bytes) {
+    return read(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Populates the current Toml instance with values from the remaining bytes of buffer, without decoding the whole document first.
+   * Only keys, string values and comments are decoded. The position of buffer is not changed.
+   *
+   * @param buffer TOML encoded as UTF-8
+   * @return this instance
+   * @throws IllegalStateException If buffer contains invalid TOML
+   */
+  public Toml read(ByteBuffer buffer) {
+    this.tomlContainer = inputToTomlContainer(TomlInput.utf8(buffer));
 
+    return this;
+  }
 
-          String line = bufferedReader.readLine();
-          while (line != null) {
-            w.append(line).append('\n');
-            line = bufferedReader.readLine();
-          }
-        } catch (IOException e) {
-          throw new RuntimeException(e);
-        } finally {
-          try {
-            bufferedReader.close();
-          } catch (IOException e) {}
-        }
-        String tomlString = w.toString();
-        return tomlString;
+  /**
+   * Populates the current Toml instance with values from a file, parsed straight out of a memory-mapped buffer.
+   * Unlike {@link #read(File)}, the document is never copied onto the heap as a whole.
+   *
+   * @param path The file to be read. Expected to be encoded as UTF-8.
+   * @return this instance
+   * @throws IllegalStateException If file contains invalid TOML
+   */
+  public Toml read(Path path) {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
     }
+  }
+
+  /**
+   * Checks that reader contains valid TOML, including duplicate keys, redefined tables and heterogeneous arrays,
+   * without building a Toml instance or decoding strings and numbers.
+   *
+   * @param reader Closed after it has been read.
+   * @return the errors found, empty if reader contains valid TOML
+   */
+  public static List<String> validate(Reader reader) {
+    try {
+      return validate(TomlInput.stream(reader, STREAM_WINDOW_SIZE));
+    } finally {
+      try {
+        reader.close();
+      } catch (IOException e) {}
+    }
+  }
+
+  /**
+   * Checks that the remaining bytes of buffer are valid TOML. See {@link #validate(Reader)}.
+   *
+   * @param buffer TOML encoded as UTF-8
+   * @return the errors found, empty if buffer contains valid TOML
+   */
+  public static List<String> validate(ByteBuffer buffer) {
+    return validate(TomlInput.utf8(buffer));
+  }
+
+  /**
+   * Checks that a file contains valid TOML, parsed straight out of a memory-mapped buffer. See {@link #validate(Reader)}.
+   *
+   * @param path The file to be checked. Expected to be encoded as UTF-8.
+   * @return the errors found, empty if the file contains valid TOML
+   */
+  public static List<String> validate(Path path) {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return validate(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  static List<String> validate(String tomlString) {
+    return validate(TomlInput.of(tomlString));
+  }
+
+  private static List<String> validate(TomlInput input) {
+    Results results;
+    try {
+      results = TomlParser.validate(input);
+    } catch (IllegalStateException e) {
+      return Collections.singletonList(e.getMessage());
+    }
+    if (results.errors.hasErrors()) {
+      return Collections.singletonList(results.errors.toString());
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Checks reader like {@link #validate(Reader)}, but keeps going after an error: the rest of the line is skipped
+   * and checking resumes on the next line, so every problem in the document is reported in one pass.
+   * The values under an invalid or duplicate table are checked but not recorded.
+   *
+   * @param reader Closed after it has been read.
+   * @return the errors found in document order, empty if reader contains valid TOML
+   */
+  public static List<TomlError> validateAll(Reader reader) {
+    try {
+      return validateAll(TomlInput.stream(reader, STREAM_WINDOW_SIZE));
+    } finally {
+      try {
+        reader.close();
+      } catch (IOException e) {}
+    }
+  }
+
+  /**
+   * Checks the remaining bytes of buffer and reports every error. See {@link #validateAll(Reader)}.
+   *
+   * @param buffer TOML encoded as UTF-8
+   * @return the errors found in document order, empty if buffer contains valid TOML
+   */
+  public static List<TomlError> validateAll(ByteBuffer buffer) {
+    return validateAll(TomlInput.utf8(buffer));
+  }
+
+  /**
+   * Checks a memory-mapped file and reports every error. See {@link #validateAll(Reader)}.
+   *
+   * @param path The file to be checked. Expected to be encoded as UTF-8.
+   * @return the errors found in document order, empty if the file contains valid TOML
+   */
+  public static List<TomlError> validateAll(Path path) {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return validateAll(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  static List<TomlError> validateAll(String tomlString) {
+    return validateAll(TomlInput.of(tomlString));
+  }
+
+  private static List<TomlError> validateAll(TomlInput input) {
+    return Collections.unmodifiableList(TomlParser.validateAll(input).errors.list());
+  }
 
     /**
    * Populates the current Toml instance with values from otherToml.
@@ -148,23 +385,40 @@ public final class Toml {
     return this;
   }
 
+   /**
+    * Parses reader through a window of {@link #STREAM_WINDOW_SIZE} chars, so only the current value is held in memory,
+    * not the whole document.
+    */
    TomlContainer readerToTomlContainer(Reader reader) throws IllegalStateException {
-       String tomlString = this.readToTomlString(reader);
-       return stringToTomlContainer(tomlString);
+       try {
+           return inputToTomlContainer(TomlInput.stream(reader, STREAM_WINDOW_SIZE));
+       } finally {
+           try {
+               reader.close();
+           } catch (IOException e) {}
+       }
    }
 
 
    TomlContainer stringToTomlContainer(String tomlString) {
-        Results results = TomlParser.run(tomlString);
+        return inputToTomlContainer(TomlInput.of(tomlString));
+    }
+
+   TomlContainer inputToTomlContainer(TomlInput input) {
+        Results results = TomlParser.run(input, options);
         if (results.errors.hasErrors()) {
-            throw new IllegalStateException(results.errors.toString());
+            throw results.errors.toException();
         }
         Container.Table lastContainer = results.getLastContainer();
         return new TomlContainer(lastContainer, results.getLastComment());
     }
 
     String getString(String key) {
-    return (String) get(key,false);
+    return getString(TomlPath.of(key));
+  }
+
+   String getString(TomlPath path) {
+    return (String) get(path,false);
   }
 
    String getString(String key, String defaultValue) {
@@ -173,7 +427,11 @@ public final class Toml {
   }
 
    Long getLong(String key) {
-      Object o = get(key,false);
+      return getLong(TomlPath.of(key));
+  }
+
+   Long getLong(TomlPath path) {
+      Object o = get(path,false);
       if (o instanceof BigDecimal) {
           BigDecimal bigDecimal = (BigDecimal) o;
           return bigDecimal.longValue();
@@ -193,8 +451,17 @@ public final class Toml {
    * @return <code>null</code> if the key is not found
    */
    <T> List<T> getList(String key) {
+    return getList(TomlPath.of(key));
+  }
+
+  /**
+   * @param path a compiled TOML key
+   * @param <T> type of list items
+   * @return <code>null</code> if the key is not found
+   */
+   <T> List<T> getList(TomlPath path) {
     @SuppressWarnings("unchecked")
-    List<T> list = (List<T>) get(key,true);
+    List<T> list = (List<T>) get(path,true);
     
     return list;
   }
@@ -211,8 +478,81 @@ public final class Toml {
     return list != null ? list : defaultValue;
   }
 
+  /**
+   * @param key a TOML key
+   * @return the integers of the array without boxing them, or <code>null</code> if the key is not found
+   */
+   long[] getLongArray(String key) {
+    return getLongArray(TomlPath.of(key));
+  }
+
+   long[] getLongArray(TomlPath path) {
+    List<?> list = (List<?>) get(path,false);
+    if (list == null) {
+      return null;
+    }
+    if (list instanceof PrimitiveList.Longs) {
+      return ((PrimitiveList.Longs) list).toLongArray();
+    }
+    long[] array = new long[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = ((Number) list.get(i)).longValue();
+    }
+    return array;
+  }
+
+  /**
+   * @param key a TOML key
+   * @return the floats of the array without boxing them, or <code>null</code> if the key is not found
+   */
+   double[] getDoubleArray(String key) {
+    return getDoubleArray(TomlPath.of(key));
+  }
+
+   double[] getDoubleArray(TomlPath path) {
+    List<?> list = (List<?>) get(path,false);
+    if (list == null) {
+      return null;
+    }
+    if (list instanceof PrimitiveList.Doubles) {
+      return ((PrimitiveList.Doubles) list).toDoubleArray();
+    }
+    double[] array = new double[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = ((Number) list.get(i)).doubleValue();
+    }
+    return array;
+  }
+
+  /**
+   * @param key a TOML key
+   * @return the booleans of the array without boxing them, or <code>null</code> if the key is not found
+   */
+   boolean[] getBooleanArray(String key) {
+    return getBooleanArray(TomlPath.of(key));
+  }
+
+   boolean[] getBooleanArray(TomlPath path) {
+    List<?> list = (List<?>) get(path,false);
+    if (list == null) {
+      return null;
+    }
+    if (list instanceof PrimitiveList.Booleans) {
+      return ((PrimitiveList.Booleans) list).toBooleanArray();
+    }
+    boolean[] array = new boolean[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = (Boolean) list.get(i);
+    }
+    return array;
+  }
+
    Boolean getBoolean(String key) {
-    return (Boolean) get(key,false);
+    return getBoolean(TomlPath.of(key));
+  }
+
+   Boolean getBoolean(TomlPath path) {
+    return (Boolean) get(path,false);
   }
 
    Boolean getBoolean(String key, Boolean defaultValue) {
@@ -221,7 +561,11 @@ public final class Toml {
   }
 
    Date getDate(String key) {
-    return (Date) get(key,false);
+    return getDate(TomlPath.of(key));
+  }
+
+   Date getDate(TomlPath path) {
+    return (Date) get(path,false);
   }
 
    Date getDate(String key, Date defaultValue) {
@@ -230,7 +574,11 @@ public final class Toml {
   }
 
    Double getDouble(String key) {
-      Object o = get(key,false);
+      return getDouble(TomlPath.of(key));
+  }
+
+   Double getDouble(TomlPath path) {
+      Object o = get(path,false);
       if (o instanceof BigDecimal) {
           BigDecimal bigDecimal = (BigDecimal) o;
           return bigDecimal.doubleValue();
@@ -280,7 +628,11 @@ public final class Toml {
    * @return true if key is present
    */
    boolean contains(String key) {
-    return get(key,false) != null;
+    return contains(TomlPath.of(key));
+  }
+
+   boolean contains(TomlPath path) {
+    return get(path,false) != null;
   }
 
   /**
@@ -379,9 +731,12 @@ public final class Toml {
 
 
 
-  @SuppressWarnings("unchecked")
   private Object get(String key, boolean needConvert) {
-      Object current = getInner(key);
+      return get(TomlPath.of(key), needConvert);
+  }
+
+  private Object get(TomlPath path, boolean needConvert) {
+      Object current = getInner(path);
       if (needConvert) {
           if (current instanceof Container.Table) {
               Container.Table table = (Container.Table) current;
@@ -395,36 +750,36 @@ public final class Toml {
   }
 
 
-    private Object getInner(String key) {
+    private Object getInner(TomlPath path) {
         Map<String, Object> values = tomlContainer.getContainer().getTableValues();
-        if (values.containsKey(key)) {
-            return values.get(key);
+        Object value = values.get(path.key);
+        if (value != null) {
+            return LazyValue.resolve(value);
         }
 
         Object current = tomlContainer.getContainer();
 
-        Keys.Key[] keys = Keys.split(key);
-
-        for (Keys.Key k : keys) {
-            if (k.index == -1 && current instanceof Container.Table && ((Container.Table) current).getTableValues().containsKey(k.path)) {
-                return ((Container.Table) current).getTableValues().get(k.path);
+        for (int i = 0; i < path.names.length; i++) {
+            int index = path.indexes[i];
+            if (index == -1 && current instanceof Container.Table && ((Container.Table) current).getTableValues().containsKey(path.paths[i])) {
+                return LazyValue.resolve(((Container.Table) current).getTableValues().get(path.paths[i]));
             }
 
-            current = ((Container.Table) current).getTableValues().get(k.name);
+            current = ((Container.Table) current).getTableValues().get(path.names[i]);
 
-            if (k.index > -1 && current != null) {
-                if (k.index >= ((Container.TableArray) current).getTableValue().size()) {
+            if (index > -1 && current != null) {
+                if (index >= ((Container.TableArray) current).getTableValue().size()) {
                     return null;
                 }
 
-                current = ((Container.TableArray) current).getTableValue().get(k.index);
+                current = ((Container.TableArray) current).getTableValue().get(index);
             }
 
             if (current == null) {
                 return  null;
             }
         }
-        return current;
+        return LazyValue.resolve(current);
     }
   
   private Toml(Container.Table values) {
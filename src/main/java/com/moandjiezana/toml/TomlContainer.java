@@ -71,7 +71,7 @@ class TomlContainer {
         }
         for (Map.Entry<String, Object> entry : container.getTableValues().entrySet()) {
             String key = entry.getKey();
-            Object value = entry.getValue();
+            Object value = LazyValue.resolve(entry.getValue());
             if (value == null) {
                 continue;
             }
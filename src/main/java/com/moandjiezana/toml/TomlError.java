@@ -0,0 +1,169 @@
+package com.moandjiezana.toml;
+
+import java.io.Serializable;
+
+/**
+ * <p>One problem found while parsing a TOML document.</p>
+ *
+ * <p>Only the position, the key and a short excerpt of the document are kept. The message is built when {@link #getMessage()} is called.</p>
+ */
+public final class TomlError implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  public enum Code {
+    DUPLICATE_TABLE,
+    TABLE_DUPLICATES_KEY,
+    KEY_DUPLICATES_TABLE,
+    DUPLICATE_KEY,
+    INVALID_TABLE,
+    INVALID_TABLE_ARRAY,
+    INVALID_KEY,
+    UNTERMINATED_KEY,
+    INVALID_VALUE,
+    UNTERMINATED_VALUE,
+    INVALID_TEXT_AFTER_VALUE,
+    HETEROGENEOUS_ARRAY,
+    NESTING_TOO_DEEP,
+    DOCUMENT_TOO_LONG,
+    STRING_TOO_LONG,
+    ARRAY_TOO_LONG,
+    TOO_MANY_KEYS,
+    TOO_MANY_NODES,
+    TOO_MANY_TABLE_ARRAY_ELEMENTS
+  }
+
+  private final Code code;
+  private final String key;
+  private final String excerpt;
+  private final int offset;
+  private final int line;
+  private final int column;
+
+  TomlError(Code code, String key, String excerpt, int offset, int line, int column) {
+    this.code = code;
+    this.key = key;
+    this.excerpt = excerpt;
+    this.offset = offset;
+    this.line = line;
+    this.column = column;
+  }
+
+  public Code getCode() {
+    return code;
+  }
+
+  /**
+   * @return the key, table or table array the error is about, or <code>null</code> if it could not be read
+   */
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * @return the start of the offending text, cut to 40 characters and "..." if it is longer, or <code>null</code>.
+   *         For {@link Code#TOO_MANY_KEYS}, the name of the full table, "" for the root table, while {@link #getKey()} is the key that did not fit.
+   */
+  public String getExcerpt() {
+    return excerpt;
+  }
+
+  /**
+   * @return index of the offending text in the document, or -1 if only the line is known
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * @return line number, starting at 1
+   */
+  public int getLine() {
+    return line;
+  }
+
+  /**
+   * @return column number, starting at 1, or -1 if only the line is known
+   */
+  public int getColumn() {
+    return column;
+  }
+
+  public String getMessage() {
+    StringBuilder sb = new StringBuilder();
+    appendTo(sb);
+    return sb.toString();
+  }
+
+  void appendTo(StringBuilder sb) {
+    switch (code) {
+      case DUPLICATE_TABLE:
+        sb.append("Duplicate table definition on line ").append(line).append(" ").append(key);
+        break;
+      case TABLE_DUPLICATES_KEY:
+        sb.append("Key already exists for table defined on line ").append(line).append(": [").append(key).append("]");
+        break;
+      case KEY_DUPLICATES_TABLE:
+        sb.append("Table already exists for key defined on line ").append(line).append(": ").append(key);
+        break;
+      case DUPLICATE_KEY:
+        sb.append("Duplicate key");
+        if (line > -1) {
+          sb.append(" on line ").append(line);
+        }
+        sb.append(": ").append(key);
+        break;
+      case INVALID_TABLE:
+        sb.append("Invalid table definition on line ").append(line).append(": ").append(excerpt);
+        break;
+      case INVALID_TABLE_ARRAY:
+        sb.append("Invalid table array definition on line ").append(line).append(": ").append(excerpt);
+        break;
+      case INVALID_KEY:
+        sb.append("Invalid key on line ").append(line).append(": ").append(excerpt);
+        break;
+      case UNTERMINATED_KEY:
+        sb.append("Key is not followed by an equals sign on line ").append(line).append(": ").append(excerpt);
+        break;
+      case INVALID_VALUE:
+        sb.append("Invalid value on line ").append(line).append(": ").append(key).append(" = ").append(excerpt);
+        break;
+      case UNTERMINATED_VALUE:
+        sb.append("Unterminated value on line ").append(line).append(": ").append(key).append(" = ").append(excerpt.trim());
+        break;
+      case INVALID_TEXT_AFTER_VALUE:
+        sb.append("Invalid text after key ").append(key).append(" on line ").append(line)
+          .append(". Make sure to terminate the value or add a comment (#).");
+        break;
+      case NESTING_TOO_DEEP:
+        sb.append("Arrays and inline tables nested too deeply on line ").append(line).append(": ").append(key).append(" = ").append(excerpt);
+        break;
+      case DOCUMENT_TOO_LONG:
+        sb.append("Document exceeds the maximum length of ").append(offset).append(" characters");
+        break;
+      case STRING_TOO_LONG:
+        sb.append("String exceeds the maximum length on line ").append(line).append(": ").append(key).append(" = ").append(excerpt);
+        break;
+      case ARRAY_TOO_LONG:
+        sb.append("Array exceeds the maximum length on line ").append(line).append(": ").append(key).append(" = ").append(excerpt);
+        break;
+      case TOO_MANY_KEYS:
+        sb.append("Key ").append(key).append(" exceeds the maximum number of keys in ")
+          .append(excerpt == null || excerpt.isEmpty() ? "the root table" : "table " + excerpt).append(" on line ").append(line);
+        break;
+      case TOO_MANY_NODES:
+        sb.append("Document exceeds the maximum number of values on line ").append(line);
+        break;
+      case TOO_MANY_TABLE_ARRAY_ELEMENTS:
+        sb.append("Table array exceeds the maximum number of elements on line ").append(line).append(": ").append(key);
+        break;
+      default:
+        sb.append(key).append(" becomes a heterogeneous array on line ").append(line);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getMessage();
+  }
+}
@@ -0,0 +1,352 @@
+package com.moandjiezana.toml;
+
+import static com.moandjiezana.toml.IdentifierConverter.IDENTIFIER_CONVERTER;
+import static com.moandjiezana.toml.ValueReaders.VALUE_READERS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.moandjiezana.toml.exception.TomlParseException;
+
+/**
+ * <p>Reads a TOML document one event at a time, in the style of a StAX pull parser, without building a {@link Toml} tree.</p>
+ *
+ * <pre><code>
+ * TomlEventReader reader = new TomlEventReader(new FileReader("config.toml"));
+ * while (reader.hasNext()) {
+ *   switch (reader.next()) {
+ *     case TABLE_START: ... reader.getPath() ...
+ *     case KEY: ... reader.getKey() ...
+ *     case VALUE: ... reader.getValue() ...
+ *   }
+ * }
+ * reader.close();
+ * </code></pre>
+ *
+ * <p>A Reader is streamed through a fixed-size window, so memory is bounded by the largest value rather than the document size.</p>
+ *
+ * <p>Only the syntax is checked. Checks that need the whole tree, such as duplicate keys, redefined tables and heterogeneous arrays, are left to {@link Toml}.</p>
+ */
+public class TomlEventReader implements Closeable {
+
+  public enum Event {
+    /** A [table] header. See {@link TomlEventReader#getPath()}. */
+    TABLE_START,
+    /** A [[table array]] header. See {@link TomlEventReader#getPath()}. */
+    TABLE_ARRAY_ELEMENT_START,
+    /** A key, at the top level or in an inline table. See {@link TomlEventReader#getKey()}. */
+    KEY,
+    /** A String, Long, Double, Boolean, Date or null value. See {@link TomlEventReader#getValue()}. */
+    VALUE,
+    ARRAY_START,
+    ARRAY_END,
+    INLINE_TABLE_START,
+    INLINE_TABLE_END,
+    /** A comment from # to the end of the line. See {@link TomlEventReader#getComment()}. */
+    COMMENT
+  }
+
+  // 顶层: 等待 key, table 或者注释
+  private static final int LINE_START = 0;
+  // 顶层: 读完了 key 和 =, 等待值
+  private static final int EXPECT_VALUE = 1;
+  // 顶层: 值后面只能是注释或者换行
+  private static final int AFTER_VALUE = 2;
+  private static final int IN_ARRAY = 3;
+  private static final int INLINE_KEY = 4;
+  private static final int INLINE_VALUE = 5;
+  private static final int INLINE_AFTER_VALUE = 6;
+
+  private final TomlInput input;
+  private final Reader reader;
+  private final Cursor index = new Cursor();
+  private final Context context = new Context(null, new Results.Errors());
+
+  private int state = LINE_START;
+  // 数组和内联表结束之后要回到的状态
+  private int[] stack = new int[8];
+  private int depth;
+
+  private Event event;
+  private List<String> path;
+  private String key;
+  private Object value;
+  private String comment;
+  private int line;
+  // table 右边的注释, 在 table 事件之后返回
+  private String pendingComment;
+
+  /**
+   * @param reader closed by {@link #close()}
+   */
+  public TomlEventReader(Reader reader) {
+    this(TomlInput.stream(reader, Toml.STREAM_WINDOW_SIZE), reader);
+  }
+
+  /**
+   * @param inputStream expected to be encoded as UTF-8, closed by {@link #close()}
+   */
+  public TomlEventReader(InputStream inputStream) {
+    this(new InputStreamReader(inputStream, TomlInput.UTF_8));
+  }
+
+  /**
+   * Reads the remaining bytes of buffer without moving its position.
+   *
+   * @param buffer TOML encoded as UTF-8
+   */
+  public TomlEventReader(ByteBuffer buffer) {
+    this(TomlInput.utf8(buffer), null);
+  }
+
+  TomlEventReader(String toml) {
+    this(TomlInput.of(toml), null);
+  }
+
+  private TomlEventReader(TomlInput input, Reader reader) {
+    this.input = input;
+    this.reader = reader;
+  }
+
+  /**
+   * @return true if {@link #next()} will return another event
+   * @throws IllegalStateException If the document ends in the middle of a value
+   */
+  public boolean hasNext() {
+    if (pendingComment != null || depth > 0 || state == EXPECT_VALUE) {
+      return true;
+    }
+    for (int i = index.get(); input.has(i); i = index.next()) {
+      char c = input.charAt(i);
+      if (c == '\n') {
+        index.newLine(i);
+        if (state == AFTER_VALUE) {
+          state = LINE_START;
+        }
+      } else if (!Lexer.isWhitespace(c)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Moves to the next event. The getters describe that event until next() is called again.
+   *
+   * @return the type of the event
+   * @throws IllegalStateException If the document contains invalid TOML
+   * @throws NoSuchElementException If there are no more events
+   */
+  public Event next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    path = null;
+    key = null;
+    value = null;
+    comment = null;
+    input.release(index.get());
+
+    if (pendingComment != null) {
+      comment = pendingComment;
+      pendingComment = null;
+      return event = Event.COMMENT;
+    }
+
+    for (int i = index.get(); ; i = index.next()) {
+      if (!input.has(i)) {
+        context.errors.unterminated(identifierName(), "", i, index.line(), index.column(i));
+        throw fail();
+      }
+      char c = input.charAt(i);
+      line = index.line();
+
+      if (c == '\n') {
+        if (state == EXPECT_VALUE) {
+          context.errors.invalidValue(identifierName(), "", i, line, index.column(i));
+          throw fail();
+        }
+        index.newLine(i);
+        if (state == AFTER_VALUE) {
+          state = LINE_START;
+        }
+      } else if (Lexer.isWhitespace(c)) {
+        continue;
+      } else if (c == '#' && state != INLINE_KEY && state != INLINE_VALUE && state != INLINE_AFTER_VALUE) {
+        if (state == EXPECT_VALUE) {
+          context.errors.invalidValue(identifierName(), "", i, line, index.column(i));
+          throw fail();
+        }
+        int end = i;
+        while (input.has(end) && input.charAt(end) != '\n') {
+          end++;
+        }
+        comment = input.substring(i, end);
+        index.set(end);
+        return event = Event.COMMENT;
+      } else if (state == LINE_START) {
+        return event = readIdentifier();
+      } else if (state == AFTER_VALUE) {
+        context.errors.invalidTextAfterIdentifier(context.identifier, c, i, line, index.column(i));
+        throw fail();
+      } else if (state == IN_ARRAY && c == ',') {
+        continue;
+      } else if (state == IN_ARRAY && c == ']') {
+        state = stack[--depth];
+        index.next();
+        return event = Event.ARRAY_END;
+      } else if (state == INLINE_AFTER_VALUE && c == ',') {
+        state = INLINE_KEY;
+      } else if ((state == INLINE_AFTER_VALUE || state == INLINE_KEY) && c == '}') {
+        state = stack[--depth];
+        index.next();
+        return event = Event.INLINE_TABLE_END;
+      } else if (state == INLINE_KEY) {
+        return event = readInlineKey();
+      } else if (state == INLINE_AFTER_VALUE) {
+        context.errors.invalidTextAfterIdentifier(context.identifier, c, i, line, index.column(i));
+        throw fail();
+      } else {
+        return event = readValue(c);
+      }
+    }
+  }
+
+  /**
+   * @return the current event, or null before the first call to {@link #next()}
+   */
+  public Event getEvent() {
+    return event;
+  }
+
+  /**
+   * @return the keys of a {@link Event#TABLE_START} or {@link Event#TABLE_ARRAY_ELEMENT_START} header, otherwise null
+   */
+  public List<String> getPath() {
+    return path;
+  }
+
+  /**
+   * @return the name of a {@link Event#KEY}, otherwise null
+   */
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * @return the value of a {@link Event#VALUE}, which may itself be null
+   */
+  public Object getValue() {
+    return value;
+  }
+
+  /**
+   * @return the text of a {@link Event#COMMENT}, starting with #, otherwise null
+   */
+  public String getComment() {
+    return comment;
+  }
+
+  /**
+   * @return the line the current event starts on, starting at 1
+   */
+  public int getLine() {
+    return line;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (reader != null) {
+      reader.close();
+    }
+  }
+
+  private Event readIdentifier() {
+    context.identifier = null;
+    Identifier identifier = IDENTIFIER_CONVERTER.convert(input, index, context);
+    if (identifier == Identifier.INVALID) {
+      throw fail();
+    }
+    index.next();
+    context.identifier = identifier;
+    if (identifier.isKey()) {
+      key = identifier.getName();
+      state = EXPECT_VALUE;
+      return Event.KEY;
+    }
+
+    Keys.Key[] keys = identifier.getKeys();
+    String[] names = new String[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      names[i] = keys[i].name;
+    }
+    path = Collections.unmodifiableList(Arrays.asList(names));
+    String rightComment = identifier.getRightComment();
+    int commentStart = rightComment == null ? -1 : rightComment.indexOf('#');
+    if (commentStart >= 0) {
+      pendingComment = rightComment.substring(commentStart);
+    }
+    return identifier.isTable() ? Event.TABLE_START : Event.TABLE_ARRAY_ELEMENT_START;
+  }
+
+  /**
+   * 和 {@link InlineTableValueReader} 一样读取内联表中的 key
+   */
+  private Event readInlineKey() {
+    int keyStart = index.get();
+    char c = input.charAt(keyStart);
+    ReadKeyResult readKeyResult = GeneralStringKeyRead.readStrKeyAndMvIndexToEqualSplit(input, index);
+    String readStrKey = readKeyResult.key;
+    boolean quoted = c == '"' || c == '\'';
+    if (!readKeyResult.isValid || readStrKey == null
+        || (!quoted && !Lexer.isDottedBareKey(readStrKey))) {
+      context.errors.invalidKey(readStrKey, keyStart, line, index.column(keyStart));
+      throw fail();
+    }
+    index.next();
+    key = readStrKey;
+    context.identifier = new Identifier(readStrKey, Identifier.Type.KEY);
+    state = INLINE_VALUE;
+    return Event.KEY;
+  }
+
+  private Event readValue(char c) {
+    int after = state == EXPECT_VALUE ? AFTER_VALUE : state == INLINE_VALUE ? INLINE_AFTER_VALUE : IN_ARRAY;
+    if (c == '[' || c == '{') {
+      if (depth == stack.length) {
+        stack = Arrays.copyOf(stack, depth * 2);
+      }
+      stack[depth++] = after;
+      state = c == '[' ? IN_ARRAY : INLINE_KEY;
+      index.next();
+      return c == '[' ? Event.ARRAY_START : Event.INLINE_TABLE_START;
+    }
+
+    Object converted = VALUE_READERS.convert(input, index, context);
+    if (converted instanceof Results.Errors) {
+      context.errors.add((Results.Errors) converted);
+      throw fail();
+    }
+    index.next();
+    value = converted;
+    state = after;
+    return Event.VALUE;
+  }
+
+  private String identifierName() {
+    return context.identifier == null ? "" : context.identifier.getName();
+  }
+
+  private TomlParseException fail() {
+    return context.errors.toException();
+  }
+}
@@ -0,0 +1,504 @@
+package com.moandjiezana.toml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * 解析器读取的字符源
+ *
+ * TOML 的结构字符 ( [ ] = " ' # \ 换行 等) 全部都是 ASCII, 所以 UTF-8 字节源可以直接按字节扫描,
+ * 只有在截取 key, 字符串值, 注释的时候才需要解码
+ */
+abstract class TomlInput {
+
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  static TomlInput of(String s) {
+    return new StringInput(s);
+  }
+
+  /**
+   * @param bytes UTF-8 编码的内容, 从 bytes.position() 读到 bytes.limit(), 不会修改 bytes 的 position
+   */
+  static TomlInput utf8(ByteBuffer bytes) {
+    return new Utf8Input(bytes);
+  }
+
+  /**
+   * 流式的源会一直读到结尾, 只应该在出错的时候调用, 正常解析用 {@link #has(int)}
+   */
+  abstract int length();
+
+  /**
+   * @return index 处是否还有字符
+   */
+  boolean has(int index) {
+    return index < length();
+  }
+
+  /**
+   * 告诉源 index 之前的字符不会再被读取, 流式的源可以丢掉它们
+   */
+  void release(int index) {}
+
+  /**
+   * @return 是否只能顺序读取, 不是流式的源可以被 {@link #slice(int, int)} 切分后并行解析
+   */
+  boolean isStreaming() {
+    return false;
+  }
+
+  /**
+   * @return [start, end) 的视图, 索引从 0 开始, 不复制内容
+   */
+  TomlInput slice(int start, int end) {
+    return new SliceInput(this, start, end);
+  }
+
+  /**
+   * 流式的源在 maxLength 之后 {@link #has(int)} 返回 false, 并且 {@link #exceedsLimit()} 返回 true,
+   * 不是流式的源在解析前检查 {@link #length()}
+   */
+  void limit(int maxLength) {}
+
+  /**
+   * @return 是否因为 {@link #limit(int)} 没有读到文档的结尾
+   */
+  boolean exceedsLimit() {
+    return false;
+  }
+
+  /**
+   * @return 解析之后源不会被修改也不会被释放, 可以只保存索引, 以后再截取
+   */
+  boolean canRetain() {
+    return false;
+  }
+
+  /**
+   * 字节源中非 ASCII 的字节按 (char) (b & 0xFF) 返回, 它们不会和任何结构字符相同
+   */
+  abstract char charAt(int index);
+
+  /**
+   * 截取并解码 [start, end)
+   */
+  abstract String substring(int start, int end);
+
+  String substring(int start) {
+    return substring(start, length());
+  }
+
+  /**
+   * 把 [start, end) 解码后追加到 sb
+   */
+  void appendTo(StringBuilder sb, int start, int end) {
+    sb.append(substring(start, end));
+  }
+
+  boolean isEmpty() {
+    return !has(0);
+  }
+
+  /**
+   * @return from 开始第一个 c 的索引, 没有的话返回第一个 has 为 false 的索引
+   */
+  int indexOf(char c, int from) {
+    return indexOfAny(c, c, c, from);
+  }
+
+  /**
+   * a, b, c 只能是 ASCII 字符, 只找两个字符时重复传入
+   *
+   * @return from 开始第一个等于 a, b 或 c 的索引, 没有的话返回第一个 has 为 false 的索引
+   */
+  int indexOfAny(char a, char b, char c, int from) {
+    if (!isStreaming()) {
+      return indexOfAny(a, b, c, from, length());
+    }
+    int i = from;
+    while (has(i)) {
+      char x = charAt(i);
+      if (x == a || x == b || x == c) {
+        return i;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * @param end 不能超过 length()
+   * @return [from, end) 中第一个等于 a, b 或 c 的索引, 没有的话返回 end, from 已经超过 end 的时候返回 from
+   */
+  int indexOfAny(char a, char b, char c, int from, int end) {
+    for (int i = from; i < end; i++) {
+      char x = charAt(i);
+      if (x == a || x == b || x == c) {
+        return i;
+      }
+    }
+    return Math.max(from, end);
+  }
+
+  /**
+   * 和 {@link #indexOfAny(char, char, char, int)} 一样, 但是只找到 limit 之前, 流式的源不会为了找到它们读入 limit 之后的字符
+   *
+   * @return [from, limit) 中第一个等于 a, b 或 c 的索引, 没有的话返回 limit 和第一个 has 为 false 的索引中较小的一个,
+   *         from 已经超过 limit 的时候返回 from
+   */
+  int indexOfAnyBefore(char a, char b, char c, int from, int limit) {
+    if (!isStreaming()) {
+      return indexOfAny(a, b, c, from, Math.min(limit, length()));
+    }
+    int i = from;
+    while (i < limit && has(i)) {
+      char x = charAt(i);
+      if (x == a || x == b || x == c) {
+        return i;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * prefix 只能包含 ASCII 字符
+   */
+  boolean startsWith(String prefix, int index) {
+    if (index < 0 || !has(index + prefix.length() - 1)) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (charAt(index + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 从 reader 流式读取, 只在固定大小的窗口里保留还没有 {@link #release(int)} 的字符,
+   * 跨行的值比窗口大的时候窗口才会变大
+   *
+   * 和以前的 readLine 一样, \r\n 和 \r 会被转成 \n, 最后一行没有换行符的话会补一个
+   */
+  static TomlInput stream(Reader reader, int windowSize) {
+    return new ReaderInput(reader, windowSize);
+  }
+
+  private static class StringInput extends TomlInput {
+    private final String s;
+
+    StringInput(String s) {
+      this.s = s;
+    }
+
+    @Override
+    int length() {
+      return s.length();
+    }
+
+    @Override
+    boolean has(int index) {
+      return index < s.length();
+    }
+
+    @Override
+    boolean canRetain() {
+      return true;
+    }
+
+    @Override
+    char charAt(int index) {
+      return s.charAt(index);
+    }
+
+    @Override
+    String substring(int start, int end) {
+      return s.substring(start, end);
+    }
+
+    @Override
+    void appendTo(StringBuilder sb, int start, int end) {
+      sb.append(s, start, end);
+    }
+
+    @Override
+    boolean startsWith(String prefix, int index) {
+      return s.startsWith(prefix, index);
+    }
+
+    @Override
+    public String toString() {
+      return s;
+    }
+  }
+
+  private static class SliceInput extends TomlInput {
+    private final TomlInput source;
+    private final int start;
+    private final int length;
+
+    SliceInput(TomlInput source, int start, int end) {
+      this.source = source;
+      this.start = start;
+      this.length = end - start;
+    }
+
+    @Override
+    int length() {
+      return length;
+    }
+
+    @Override
+    boolean has(int index) {
+      return index < length;
+    }
+
+    @Override
+    boolean canRetain() {
+      return source.canRetain();
+    }
+
+    @Override
+    int indexOfAny(char a, char b, char c, int from, int end) {
+      return source.indexOfAny(a, b, c, start + from, start + end) - start;
+    }
+
+    @Override
+    char charAt(int index) {
+      if (index < 0 || index >= length) {
+        throw new StringIndexOutOfBoundsException(index);
+      }
+      return source.charAt(start + index);
+    }
+
+    @Override
+    String substring(int start, int end) {
+      if (start < 0 || end > length || start > end) {
+        throw new StringIndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+      }
+      return source.substring(this.start + start, this.start + end);
+    }
+
+    @Override
+    public String toString() {
+      return substring(0, length);
+    }
+  }
+
+  private static class Utf8Input extends TomlInput {
+    private final ByteBuffer bytes;
+    // 和 bytes 共享内容, 用于 Swar 一次读 8 个字节
+    private final ByteBuffer words;
+    private final int offset;
+    private final int length;
+
+    Utf8Input(ByteBuffer bytes) {
+      this.bytes = bytes;
+      this.words = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      this.offset = bytes.position();
+      this.length = bytes.remaining();
+    }
+
+    @Override
+    int indexOfAny(char a, char b, char c, int from, int end) {
+      if (from >= end) {
+        return Math.max(from, end);
+      }
+      return Swar.indexOfAny(words, offset + from, offset + end, a, b, c) - offset;
+    }
+
+    @Override
+    int length() {
+      return length;
+    }
+
+    @Override
+    char charAt(int index) {
+      if (index < 0 || index >= length) {
+        throw new StringIndexOutOfBoundsException(index);
+      }
+      return (char) (bytes.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    String substring(int start, int end) {
+      if (start < 0 || end > length || start > end) {
+        throw new StringIndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+      }
+      if (bytes.hasArray()) {
+        return new String(bytes.array(), bytes.arrayOffset() + offset + start, end - start, UTF_8);
+      }
+      // 每次复制一个新的视图, 并行解析的时候不会共享 position
+      byte[] copy = new byte[end - start];
+      ByteBuffer d = bytes.duplicate();
+      d.position(offset + start);
+      d.get(copy);
+      return new String(copy, UTF_8);
+    }
+
+    @Override
+    public String toString() {
+      return substring(0, length);
+    }
+  }
+
+  private static class ReaderInput extends TomlInput {
+    private final Reader reader;
+    private char[] window;
+    // window[0] 在整个文档中的索引
+    private int windowStart;
+    private int filled;
+    private int released;
+    private boolean eof;
+    private boolean skipLineFeed;
+    private boolean endsWithLineFeed = true;
+    // 结尾补上的换行符, 不计入 maxLength
+    private boolean addedLineFeed;
+    private int maxLength = Integer.MAX_VALUE;
+    private boolean exceeded;
+
+    ReaderInput(Reader reader, int windowSize) {
+      this.reader = reader;
+      this.window = new char[Math.max(windowSize, 16)];
+    }
+
+    @Override
+    int length() {
+      while (fill()) {}
+      int length = windowStart + filled;
+      // 超过 maxLength 的时候 has 返回 false
+      return has(length - 1) ? length : maxLength;
+    }
+
+    @Override
+    boolean isStreaming() {
+      return true;
+    }
+
+    @Override
+    boolean has(int index) {
+      while (index >= windowStart + filled) {
+        if (!fill()) {
+          return false;
+        }
+      }
+      if (index >= maxLength && !(addedLineFeed && index == windowStart + filled - 1)) {
+        exceeded = true;
+        return false;
+      }
+      return true;
+    }
+
+    @Override
+    char charAt(int index) {
+      int i = index - windowStart;
+      if (i >= 0 && i < filled) {
+        return window[i];
+      }
+      if (i < 0) {
+        throw new IllegalStateException("index " + index + " has already been released");
+      }
+      if (!has(index)) {
+        throw new StringIndexOutOfBoundsException(index);
+      }
+      return window[index - windowStart];
+    }
+
+    @Override
+    String substring(int start, int end) {
+      if (start < windowStart) {
+        throw new IllegalStateException("index " + start + " has already been released");
+      }
+      if (start > end || (end > start && !has(end - 1))) {
+        throw new StringIndexOutOfBoundsException("start " + start + ", end " + end);
+      }
+      return new String(window, start - windowStart, end - start);
+    }
+
+    @Override
+    void release(int index) {
+      released = Math.max(released, index);
+    }
+
+    @Override
+    void limit(int maxLength) {
+      this.maxLength = maxLength;
+    }
+
+    @Override
+    boolean exceedsLimit() {
+      return exceeded;
+    }
+
+    /**
+     * @return false 已经读到结尾
+     */
+    private boolean fill() {
+      if (eof) {
+        return false;
+      }
+      if (filled == window.length) {
+        makeRoom();
+      }
+      // 最多读到 maxLength 之后的一个字符, 知道文档超过了 maxLength 就够了
+      long left = (long) maxLength + 1 - windowStart - filled;
+      if (left <= 0) {
+        return false;
+      }
+      int read;
+      try {
+        read = reader.read(window, filled, (int) Math.min(window.length - filled, left));
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      if (read == -1) {
+        eof = true;
+        if (!endsWithLineFeed) {
+          if (filled == window.length) {
+            makeRoom();
+          }
+          window[filled++] = '\n';
+          addedLineFeed = true;
+          return true;
+        }
+        return false;
+      }
+      int end = filled + read;
+      for (int i = filled; i < end; i++) {
+        char c = window[i];
+        if (skipLineFeed) {
+          skipLineFeed = false;
+          if (c == '\n') {
+            continue;
+          }
+        }
+        if (c == '\r') {
+          c = '\n';
+          skipLineFeed = true;
+        }
+        window[filled++] = c;
+        endsWithLineFeed = c == '\n';
+      }
+      return true;
+    }
+
+    private void makeRoom() {
+      int shift = Math.min(released - windowStart, filled);
+      if (shift > 0) {
+        System.arraycopy(window, shift, window, 0, filled - shift);
+        windowStart += shift;
+        filled -= shift;
+      }
+      if (filled == window.length) {
+        window = Arrays.copyOf(window, window.length * 2);
+      }
+    }
+  }
+}
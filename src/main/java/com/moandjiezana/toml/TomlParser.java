@@ -2,88 +2,225 @@ package com.moandjiezana.toml;
 
 import static com.moandjiezana.toml.IdentifierConverter.IDENTIFIER_CONVERTER;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 class TomlParser {
 
   static Results run(String tomlString) {
-    final Results results = new Results();
-    
+    return run(TomlInput.of(tomlString));
+  }
+
+  static Results run(TomlInput tomlString) {
+    return run(tomlString, ParseOptions.DEFAULT);
+  }
+
+  static Results run(TomlInput tomlString, ParseOptions options) {
+    // 只有调用者给了 executor 才并行解析. 每一段的节点数是分开计数的, 太长的文档不切分, 只报告 DOCUMENT_TOO_LONG
+    if (options.executor != null && !options.limits.countsNodes() && ChunkedParser.shouldSplit(tomlString)
+        && tomlString.length() <= options.limits.maxDocumentLength) {
+      return ChunkedParser.run(tomlString, ChunkedParser.PARALLELISM, ChunkedParser.MIN_CHUNK_LENGTH, options);
+    }
+    return run(tomlString, new Cursor(), new Results(), options);
+  }
+
+  /**
+   * 只检查语法和 Results 中的重复检查, 不解码值, 也不截取注释
+   */
+  static Results validate(TomlInput tomlString) {
+    return run(tomlString, new Cursor(), new Results(), ParseOptions.VALIDATE);
+  }
+
+  /**
+   * 和 validate 一样, 但是出现错误后继续检查, 返回所有的错误
+   */
+  static Results validateAll(TomlInput tomlString) {
+    return run(tomlString, new Cursor(), new Results(), ParseOptions.VALIDATE.recover(true));
+  }
+
+  /**
+   * @param index 开始解析的位置和行号
+   */
+  static Results run(TomlInput tomlString, Cursor index, Results results) {
+    return run(tomlString, index, results, ParseOptions.DEFAULT);
+  }
+
+  /**
+   * 不在 projection 中的 table 不会传给 results, 不在 projection 中的值只检查语法, 不会解码, 也不会传给 results
+   *
+   * options.recover 的时候, 出现错误的行剩下的内容被跳过, 从下一行继续.
+   * 出错的 [table] 下面的值只检查语法, 不传给 results, 避免把它们当作上一个 table 的值报告重复的 key
+   */
+  static Results run(TomlInput tomlString, Cursor index, Results results, ParseOptions options) {
+    int maxLength = options.limits.maxDocumentLength;
+    if (maxLength != Integer.MAX_VALUE) {
+      if (tomlString.isStreaming()) {
+        tomlString.limit(maxLength);
+      } else if (tomlString.length() > maxLength) {
+        results.errors.documentTooLong(maxLength);
+        return results;
+      }
+    }
     if (tomlString.isEmpty()) {
       return results;
     }
     
-    AtomicInteger index = new AtomicInteger();
+    boolean validateOnly = options.validateOnly;
+    boolean recover = options.recover;
+    boolean keepComments = options.keepComments && !validateOnly;
+    Projection projection = options.projection;
+    Context context = new Context(null, results.errors);
+    context.validateOnly = validateOnly;
+    context.keepComments = keepComments;
+    context.javaTime = options.javaTime;
+    context.limits = options.limits;
+    results.limits = options.limits;
+    context.cancellation = options.cancellation;
     boolean inComment = false;
-    AtomicInteger line = new AtomicInteger(1);
+    List<String> tablePath = Collections.emptyList();
+    boolean tableIncluded = true;
     Identifier identifier = null;
     Object value = null;
-    AtomicInteger beforeCommentIndex = new AtomicInteger(0);
-    for (int i = index.get(); i < tomlString.length(); i = index.incrementAndGet()) {
+    int beforeCommentIndex = 0;
+    int errorCount = 0;
+    // 上一次循环开始的位置和那时的错误数
+    int start = index.get();
+    int errorsBeforeStart = 0;
+    for (int i = index.get(); tomlString.has(i); i = index.next()) {
       char c = tomlString.charAt(i);
+      context.checkCancelled(index);
       
-      if (results.errors.hasErrors()) {
-        break;
+      if (results.errors.size() > errorCount) {
+        if (!recover) {
+          break;
+        }
+        errorCount = results.errors.size();
+        // 出错的 reader 可能越过了还没有计入行号的换行符
+        for (int j = start; j < i; j++) {
+          if (tomlString.charAt(j) == '\n' && !index.isCounted(j)) {
+            index.newLine(j);
+          }
+        }
+        if (tomlString.charAt(i - 1) == '\n') {
+          // 已经在下一行的开头
+          inComment = false;
+          identifier = null;
+          value = null;
+        } else if (c != '\n') {
+          // 下一个字符是换行符, 会清除这一行的 key 和值
+          index.set(tomlString.indexOf('\n', i) - 1);
+          continue;
+        }
       }
+      start = i;
+      errorsBeforeStart = results.errors.size();
       if (c == '#' && !inComment) {
         inComment = true;
-      } else if (!Character.isWhitespace(c) && !inComment && identifier == null) {
+        // 注释的内容不需要逐个字符检查, 下一个字符就是换行符
+        index.set(tomlString.indexOf('\n', i + 1) - 1);
+      } else if (!Lexer.isWhitespace(c) && !inComment && identifier == null) {
           int commentLastIndex = index.get();
-          int firstIndex = beforeCommentIndex.get();
+          int firstIndex = beforeCommentIndex;
           String beforeComment = null;
-          if (commentLastIndex > firstIndex) {
+          if (commentLastIndex > firstIndex && keepComments) {
               beforeComment = tomlString.substring(firstIndex, commentLastIndex);
           }
-        Identifier id = IDENTIFIER_CONVERTER.convert(tomlString, index, new Context(null, line, results.errors));
+        context.identifier = null;
+        Identifier id = IDENTIFIER_CONVERTER.convert(tomlString, index, context);
         id.setBeforeComment(beforeComment);
-        if (id != Identifier.INVALID) {
+        if (id == Identifier.INVALID) {
+          if (c == '[') {
+            tableIncluded = false;
+          }
+        } else if (!context.addNode()) {
+          results.errors.tooManyNodes(i, index.line(), index.column(i));
+        } else {
+          if (!id.isKey()) {
+            if (projection != null) {
+              tablePath = tablePath(id);
+            }
+            tableIncluded = projection == null || projection.includes(tablePath, null);
+          }
           if (id.isKey()) {
             identifier = id;
           } else if (id.isTable()) {
-            results.startTables(id, line);
-              beforeCommentIndex.set(index.get()+2);
+            if (tableIncluded) {
+              results.startTables(id, index.line());
+              tableIncluded = results.errors.size() == errorCount;
+            }
+            beforeCommentIndex = index.get() + 2;
           } else if (id.isTableArray()) {
-            results.startTableArray(id, line);
-            beforeCommentIndex.set(index.get()+2);
+            if (tableIncluded) {
+              results.startTableArray(id, index.line());
+              tableIncluded = results.errors.size() == errorCount;
+            }
+            beforeCommentIndex = index.get() + 2;
           }
         }
       } else if (c == '\n') {
         inComment = false;
         identifier = null;
         value = null;
-        line.incrementAndGet();
-      } else if (!inComment && identifier != null && identifier.isKey() && value == null && !Character.isWhitespace(c)) {
-        value = ValueReaders.VALUE_READERS.convert(tomlString, index, new Context(identifier, line, results.errors));
+        index.newLine(i);
+        // 后面只会再用到 beforeCommentIndex 开始的注释
+        tomlString.release(keepComments && beforeCommentIndex >= 0 ? Math.min(beforeCommentIndex, i + 1) : i + 1);
+      } else if (!inComment && identifier != null && identifier.isKey() && value == null && !Lexer.isWhitespace(c)) {
+        boolean skip = !tableIncluded || projection != null && !projection.includes(tablePath, identifier.getName());
+        context.identifier = identifier;
+        context.validateOnly = validateOnly || skip;
+        value = ValueReaders.VALUE_READERS.convertLazily(tomlString, index, context);
+        context.validateOnly = validateOnly;
+        // 出错的值可能停在一行的中间, 不再读这一行剩下的内容
+        if (keepComments && !(value instanceof Results.Errors)) {
           int rightCommentStartIndex =  index.get() + 1;
           int rightCommentEndIndex =  rightCommentStartIndex;
-          if (rightCommentStartIndex < tomlString.length()) {
-              while ( rightCommentEndIndex<tomlString.length()&& tomlString.charAt(rightCommentEndIndex) != '\n') {
+          if (tomlString.has(rightCommentStartIndex)) {
+              while ( tomlString.has(rightCommentEndIndex)&& tomlString.charAt(rightCommentEndIndex) != '\n') {
                   rightCommentEndIndex++;
               }
-              identifier.setRightComment(tomlString.substring(rightCommentStartIndex,rightCommentEndIndex));
+              if (!skip) {
+                  identifier.setRightComment(tomlString.substring(rightCommentStartIndex,rightCommentEndIndex));
+              }
               rightCommentEndIndex++;
           }
-          if (rightCommentEndIndex < tomlString.length()) {
-              beforeCommentIndex.set(rightCommentEndIndex);
+          if (tomlString.has(rightCommentEndIndex)) {
+              beforeCommentIndex = rightCommentEndIndex;
           }else{
-              beforeCommentIndex.set(-1);
+              beforeCommentIndex = -1;
           }
+        }
 
         if (value instanceof Results.Errors) {
           results.errors.add((Results.Errors) value);
-        } else {
-          results.addValue(identifier,identifier.getName(), value, line);
+        } else if (!skip) {
+          results.addValue(identifier,identifier.getName(), value, index.line());
         }
-      } else if (value != null && !inComment && !Character.isWhitespace(c)) {
-        results.errors.invalidTextAfterIdentifier(identifier, c, line.get());
+      } else if (value != null && !inComment && !Lexer.isWhitespace(c)) {
+        results.errors.invalidTextAfterIdentifier(identifier, c, i, index.line(), index.column(i));
       }
     }
-    int lastCommentIndex = beforeCommentIndex.get();
-      if (lastCommentIndex > 0 && lastCommentIndex<tomlString.length()) {
+    if (tomlString.exceedsLimit()) {
+      // 最后一次循环读到了 maxLength, 这时的错误是内容被截断造成的, 和不是流式的源一样只报告 DOCUMENT_TOO_LONG
+      results.errors.truncate(errorsBeforeStart);
+      results.errors.documentTooLong(maxLength);
+      return results;
+    }
+    int lastCommentIndex = beforeCommentIndex;
+      if (lastCommentIndex > 0 && tomlString.has(lastCommentIndex) && keepComments) {
           results.setLastComment(tomlString.substring(lastCommentIndex));
       }
     return results;
   }
   
+  private static List<String> tablePath(Identifier table) {
+    Keys.Key[] keys = table.getKeys();
+    List<String> names = new ArrayList<String>(keys.length);
+    for (Keys.Key key : keys) {
+      names.add(key.name);
+    }
+    return names;
+  }
+
   private TomlParser() {}
 }
@@ -0,0 +1,100 @@
+package com.moandjiezana.toml;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编译好的 key 路径, 例如 a.b, "a.b".c, servers[1].ip
+ *
+ * 和 Keys.Key 一样, 带引号的部分保留引号, 每一部分可以带一个 [n] 下标.
+ * Toml 的 getter 通过 of(String) 从有上限的缓存中取得, 同一个 key 只解析一次
+ */
+final class TomlPath {
+
+  static final int CACHE_SIZE = 1024;
+  // 满了就整个清空, 读的时候不加锁
+  static final ConcurrentHashMap<String, TomlPath> CACHE = new ConcurrentHashMap<String, TomlPath>();
+
+  final String key;
+  final String[] names;
+  // -1 表示没有下标
+  final int[] indexes;
+  // names[i] 和它后面的部分用 . 连起来, 剩下的部分可能是一个带 . 的 key
+  final String[] paths;
+
+  private TomlPath(String key, String[] names, int[] indexes) {
+    this.key = key;
+    this.names = names;
+    this.indexes = indexes;
+    this.paths = new String[names.length];
+    for (int i = names.length - 1; i > -1; i--) {
+      paths[i] = i == names.length - 1 ? names[i] : names[i] + "." + paths[i + 1];
+    }
+  }
+
+  static TomlPath of(String key) {
+    TomlPath path = CACHE.get(key);
+    if (path == null) {
+      path = compile(key);
+      if (CACHE.size() >= CACHE_SIZE) {
+        CACHE.clear();
+      }
+      CACHE.put(key, path);
+    }
+    return path;
+  }
+
+  static TomlPath compile(String key) {
+    List<String> names = new ArrayList<String>();
+    List<Integer> indexes = new ArrayList<Integer>();
+    boolean quoted = false;
+    int start = 0;
+    for (int i = 0; i < key.length(); i++) {
+      char c = key.charAt(i);
+      if ((c == '"' || c == '\'') && (i == 0 || key.charAt(i - 1) != '\\')) {
+        quoted = !quoted;
+      } else if (c == '.' && !quoted) {
+        addSegment(key, start, i, names, indexes);
+        start = i + 1;
+      }
+    }
+    addSegment(key, start, key.length(), names, indexes);
+
+    int[] indexArray = new int[indexes.size()];
+    for (int i = 0; i < indexArray.length; i++) {
+      indexArray[i] = indexes.get(i);
+    }
+    return new TomlPath(key, names.toArray(new String[0]), indexArray);
+  }
+
+  private static void addSegment(String key, int start, int end, List<String> names, List<Integer> indexes) {
+    int open = end > start && key.charAt(end - 1) == ']' ? key.lastIndexOf('[', end - 1) : -1;
+    // [] 中不是数字的时候是 key 的一部分, 例如 " type[abc]"
+    if (open < start || !isIndex(key, open + 1, end - 1)) {
+      names.add(key.substring(start, end));
+      indexes.add(-1);
+    } else {
+      names.add(key.substring(start, open));
+      indexes.add(Integer.parseInt(key.substring(open + 1, end - 1)));
+    }
+  }
+
+  private static boolean isIndex(String key, int start, int end) {
+    if (start == end || end - start > 9) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      char c = key.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return key;
+  }
+}
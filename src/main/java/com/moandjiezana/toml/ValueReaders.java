@@ -11,28 +11,112 @@ import static com.moandjiezana.toml.NullValueReaderWriter.NULL_VALUE_READER_WRIT
 import static com.moandjiezana.toml.NumberValueReaderWriter.NUMBER_VALUE_READER_WRITER;
 import static com.moandjiezana.toml.StringValueReaderWriter.STRING_VALUE_READER_WRITER;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Date;
 
 class ValueReaders {
   
   static final ValueReaders VALUE_READERS = new ValueReaders();
+
+  // 只检查语法时代替解码结果的值, 它们只保留类型, 数组仍然可以检查 heterogenous
+  static final String VALIDATED_STRING = "";
+  static final Double VALIDATED_FLOAT = 0.0;
+  static final Date VALIDATED_DATE = new Date(0);
   
-  Object convert(String value, AtomicInteger index, Context context) {
-    for (ValueReader valueParser : READERS) {
-      if (valueParser.canRead(value,index.get())) {
-        return valueParser.read(value, index, context);
-      }
+  Object convert(TomlInput value, Cursor index, Context context) {
+    ValueReader reader = readerFor(value, index.get(), context);
+    if (reader != null) {
+      return reader.read(value, index, context);
+    }
+    return invalidValue(value, index, context);
+  }
+
+  /**
+   * 和 {@link #convert} 一样, 但是数字, 带时区的日期时间和没有转义的字符串只检查语法, 返回 {@link LazyValue}
+   */
+  Object convertLazily(TomlInput value, Cursor index, Context context) {
+    ValueReader reader = readerFor(value, index.get(), context);
+    if (reader == STRING_VALUE_READER_WRITER) {
+      return STRING_VALUE_READER_WRITER.readLazily(value, index, context);
+    }
+    if (reader == LITERAL_STRING_VALUE_READER) {
+      return LITERAL_STRING_VALUE_READER.readLazily(value, index, context);
+    }
+    if (reader == NUMBER_VALUE_READER_WRITER) {
+      return NUMBER_VALUE_READER_WRITER.readLazily(value, index, context);
     }
-    String substring = value.substring(index.get());
+    if (reader == DATE_VALUE_READER_WRITER) {
+      return DATE_VALUE_READER_WRITER.readLazily(value, index, context);
+    }
+    if (reader != null) {
+      return reader.read(value, index, context);
+    }
+    return invalidValue(value, index, context);
+  }
+
+  /**
+   * 字符串的 reader 找结束的引号时只找到 {@link Context#stringLimit(int)}, 找不到的时候返回这个错误, 不再读后面的内容
+   *
+   * @param start 开始的引号
+   */
+  static Results.Errors stringTooLong(TomlInput s, int start, int line, int column, Context context) {
+    Results.Errors errors = new Results.Errors();
+    errors.stringTooLong(context.identifier.getName(), Results.Errors.excerpt(s, start), start, line, column);
+    return errors;
+  }
+
+  private Results.Errors invalidValue(TomlInput value, Cursor index, Context context) {
     Results.Errors errors = new Results.Errors();
-    errors.invalidValue(context.identifier.getName(), substring, context.line.get());
+    errors.invalidValue(context.identifier.getName(), Results.Errors.excerpt(value, index.get()), index.get(), index.line(), index.column());
     return errors;
   }
+
+  /**
+   * 根据第一个字符选择 reader, 只有多行字符串和字符串, 日期和数字需要再看后面的字符
+   *
+   * @return null 不是合法的值
+   */
+  private ValueReader readerFor(TomlInput s, int i, Context context) {
+    char c = s.charAt(i);
+    if (c >= FIRST_CHAR_READERS.length) {
+      return null;
+    }
+    ValueReader reader = FIRST_CHAR_READERS[c];
+    if (reader == STRING_VALUE_READER_WRITER) {
+      return MULTILINE_STRING_VALUE_READER.canRead(s, i) ? MULTILINE_STRING_VALUE_READER : reader;
+    }
+    if (reader == LITERAL_STRING_VALUE_READER) {
+      return MULTILINE_LITERAL_STRING_VALUE_READER.canRead(s, i) ? MULTILINE_LITERAL_STRING_VALUE_READER : reader;
+    }
+    if (Lexer.isDigit(c)) {
+      // 日期的第 5 个字符一定是 -, 时间的第 3 个字符一定是 :
+      if (context.javaTime && s.has(i + 2) && s.charAt(i + 2) == ':') {
+        return DATE_VALUE_READER_WRITER;
+      }
+      return s.has(i + 4) && s.charAt(i + 4) == '-' && DATE_VALUE_READER_WRITER.canRead(s, i) ? DATE_VALUE_READER_WRITER : reader;
+    }
+    if (reader != null && !reader.canRead(s, i)) {
+      return null;
+    }
+    return reader;
+  }
   
   private ValueReaders() {}
   
-  private static final ValueReader[] READERS = { 
-    MULTILINE_STRING_VALUE_READER, MULTILINE_LITERAL_STRING_VALUE_READER, LITERAL_STRING_VALUE_READER, STRING_VALUE_READER_WRITER, DATE_VALUE_READER_WRITER, NUMBER_VALUE_READER_WRITER, BOOLEAN_VALUE_READER_WRITER, ARRAY_VALUE_READER, INLINE_TABLE_VALUE_READER,
-          NULL_VALUE_READER_WRITER
-  };
+  private static final ValueReader[] FIRST_CHAR_READERS = new ValueReader[128];
+
+  static {
+    FIRST_CHAR_READERS['"'] = STRING_VALUE_READER_WRITER;
+    FIRST_CHAR_READERS['\''] = LITERAL_STRING_VALUE_READER;
+    for (char c = '0'; c <= '9'; c++) {
+      FIRST_CHAR_READERS[c] = NUMBER_VALUE_READER_WRITER;
+    }
+    FIRST_CHAR_READERS['+'] = NUMBER_VALUE_READER_WRITER;
+    FIRST_CHAR_READERS['-'] = NUMBER_VALUE_READER_WRITER;
+    FIRST_CHAR_READERS['N'] = NUMBER_VALUE_READER_WRITER;
+    FIRST_CHAR_READERS['t'] = BOOLEAN_VALUE_READER_WRITER;
+    FIRST_CHAR_READERS['f'] = BOOLEAN_VALUE_READER_WRITER;
+    FIRST_CHAR_READERS['['] = ARRAY_VALUE_READER;
+    FIRST_CHAR_READERS['{'] = INLINE_TABLE_VALUE_READER;
+    FIRST_CHAR_READERS['n'] = NULL_VALUE_READER_WRITER;
+  }
 }
@@ -0,0 +1,37 @@
+package com.moandjiezana.toml.exception;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * <p>Thrown when a read is stopped by its {@link com.moandjiezana.toml.CancellationToken}.</p>
+ *
+ * <p>The document was not necessarily invalid, so this is not a {@link TomlParseException}.
+ * The values read before the cancellation are discarded.</p>
+ */
+public class TomlCancelledException extends CancellationException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int line;
+  private final boolean deadlineExceeded;
+
+  public TomlCancelledException(String message, int line, boolean deadlineExceeded) {
+    super(message);
+    this.line = line;
+    this.deadlineExceeded = deadlineExceeded;
+  }
+
+  /**
+   * @return the line being parsed when the cancellation was noticed, starting at 1
+   */
+  public int getLine() {
+    return line;
+  }
+
+  /**
+   * @return true if the token's deadline passed, false if it was cancelled explicitly
+   */
+  public boolean isDeadlineExceeded() {
+    return deadlineExceeded;
+  }
+}
@@ -0,0 +1,42 @@
+package com.moandjiezana.toml.exception;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.moandjiezana.toml.TomlError;
+
+/**
+ * <p>Thrown when a document is not valid TOML.</p>
+ *
+ * <p>{@link #getErrors()} returns the errors with their code, position and key, so they can be handled without parsing the message.</p>
+ */
+public class TomlParseException extends IllegalStateException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final List<TomlError> errors;
+  private transient String message;
+
+  public TomlParseException(List<TomlError> errors) {
+    this.errors = Collections.unmodifiableList(errors);
+  }
+
+  public List<TomlError> getErrors() {
+    return errors;
+  }
+
+  /**
+   * @return the messages of all errors, built the first time they are needed
+   */
+  @Override
+  public String getMessage() {
+    if (message == null) {
+      StringBuilder sb = new StringBuilder();
+      for (TomlError error : errors) {
+        sb.append(error.getMessage());
+      }
+      message = sb.toString();
+    }
+    return message;
+  }
+}
@@ -0,0 +1,98 @@
+package com.moandjiezana.toml;
+
+/**
+ * Valid documents shaped to hit the worst case of a parser, shared by {@link LinearTimeTest} and the benchmarks.
+ * Each generator returns a document of about size chars.
+ */
+class AdversarialInputs {
+
+  static final String[] KINDS = { "backslashes", "deepHeader", "hugeInlineTable", "longKeys", "deepTableArrays" };
+
+  static String generate(String kind, int size) {
+    if (kind.equals("backslashes")) {
+      return backslashes(size);
+    } else if (kind.equals("deepHeader")) {
+      return deepHeader(size);
+    } else if (kind.equals("hugeInlineTable")) {
+      return hugeInlineTable(size);
+    } else if (kind.equals("longKeys")) {
+      return longKeys(size);
+    } else if (kind.equals("deepTableArrays")) {
+      return deepTableArrays(size);
+    }
+    throw new IllegalArgumentException(kind);
+  }
+
+  /**
+   * One basic string made of escaped backslashes, ending with an escaped quote.
+   */
+  static String backslashes(int size) {
+    StringBuilder sb = new StringBuilder(size + 16);
+    sb.append("a = \"");
+    while (sb.length() < size) {
+      sb.append("\\\\");
+    }
+    return sb.append("\\\"\"\n").toString();
+  }
+
+  /**
+   * A table header nested size / 4 levels deep, followed by keys holding inline tables.
+   */
+  static String deepHeader(int size) {
+    StringBuilder sb = new StringBuilder(size + 16);
+    sb.append("[a");
+    while (sb.length() < size / 2) {
+      sb.append(".a");
+    }
+    sb.append("]\n");
+    for (int i = 0; sb.length() < size; i++) {
+      sb.append('k').append(i).append(" = { x = { y = 1 } }\n");
+    }
+    return sb.toString();
+  }
+
+  /**
+   * One inline table with size / 12 keys.
+   */
+  static String hugeInlineTable(int size) {
+    StringBuilder sb = new StringBuilder(size + 16);
+    sb.append("t = { k0 = 0");
+    for (int i = 1; sb.length() < size; i++) {
+      sb.append(", k").append(i).append(" = ").append(i);
+    }
+    return sb.append(" }\n").toString();
+  }
+
+  /**
+   * A bare key and a quoted key, each size / 2 chars long.
+   */
+  static String longKeys(int size) {
+    StringBuilder sb = new StringBuilder(size + 16);
+    while (sb.length() < size / 2) {
+      sb.append("key_");
+    }
+    sb.append(" = 1\n\"");
+    while (sb.length() < size) {
+      sb.append("key.");
+    }
+    return sb.append("\" = 2\n").toString();
+  }
+
+  /**
+   * The same table array, 64 levels deep, repeated until the document is size chars long.
+   */
+  static String deepTableArrays(int size) {
+    StringBuilder header = new StringBuilder("[[a");
+    for (int i = 1; i < 64; i++) {
+      header.append(".a");
+    }
+    header.append("]]\n");
+    StringBuilder sb = new StringBuilder(size + header.length() + 16);
+    for (int i = 0; sb.length() < size; i++) {
+      sb.append(header).append("x = ").append(i).append('\n');
+    }
+    return sb.toString();
+  }
+
+  private AdversarialInputs() {}
+}
@@ -3,16 +3,26 @@ package com.moandjiezana.toml;
 import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 
+import com.moandjiezana.toml.exception.TomlParseException;
 import com.moandjiezana.toml.testutils.Utils;
 
 public class ArrayTest {
@@ -103,6 +113,194 @@ public class ArrayTest {
     assertEquals("6", toml.getString("points[3].y"));
     assertEquals("12", toml.getString("points[3].z"));
   }
+
+  @Test
+  public void should_store_primitive_arrays_unboxed() throws Exception {
+    Toml toml = new Toml().read("a = [1, -2, 3]\nb = [1.5, -0.0]\nc = [true, false]\nd = [[1], [2.5], []]");
+
+    assertTrue(toml.<Long>getList("a") instanceof PrimitiveList.Longs);
+    assertArrayEquals(new long[] { 1, -2, 3 }, toml.getLongArray("a"));
+    assertArrayEquals(new double[] { 1.5, -0.0 }, toml.getDoubleArray("b"), 0);
+    assertTrue(Arrays.equals(new boolean[] { true, false }, toml.getBooleanArray("c")));
+    assertEquals(asList(asList(1L), asList(2.5), asList()), toml.getList("d"));
+    assertNull(toml.getLongArray("e"));
+  }
+
+  @Test
+  public void should_grow_and_modify_primitive_arrays() throws Exception {
+    StringBuilder toml = new StringBuilder("a = [");
+    for (int i = 0; i < 1000; i++) {
+      toml.append(i).append(',');
+    }
+    List<Long> list = new Toml().read(toml.append(']').toString()).getList("a");
+
+    assertEquals(1000, list.size());
+    assertEquals(999L, list.get(999).longValue());
+    list.add(0, -1L);
+    list.remove(1000);
+    list.set(1, 5L);
+    assertEquals(asList(-1L, 5L, 1L), list.subList(0, 3));
+    assertEquals(1000, list.size());
+    assertEquals(998L, list.get(999).longValue());
+  }
+
+  @Test(timeout = 10000)
+  public void should_stop_at_sign_without_digits() throws Exception {
+    for (String toml : new String[] { "a = [-", "a = [+", "a = [1, 2, -", "a = [-]" }) {
+      try {
+        new Toml().read(toml);
+        fail(toml);
+      } catch (TomlParseException e) {
+        assertEquals(toml, TomlError.Code.INVALID_VALUE, e.getErrors().get(0).getCode());
+      }
+      assertTrue(toml, Toml.validateAll(new StringReader(toml)).size() <= 2);
+    }
+  }
+
+  @Test
+  public void should_reject_null_in_primitive_arrays() throws Exception {
+    Toml toml = new Toml().read("a = [1, 2]\nb = [1.5]\nc = [true]");
+    List<Long> a = toml.getList("a");
+
+    try {
+      a.add(null);
+      fail();
+    } catch (NullPointerException e) {
+      assertEquals("An array of integers cannot contain null", e.getMessage());
+    }
+    try {
+      a.set(0, null);
+      fail();
+    } catch (NullPointerException e) {
+      assertEquals("An array of integers cannot contain null", e.getMessage());
+    }
+    try {
+      toml.<Double>getList("b").add(0, null);
+      fail();
+    } catch (NullPointerException e) {
+      assertEquals("An array of floats cannot contain null", e.getMessage());
+    }
+    try {
+      toml.<Boolean>getList("c").set(0, null);
+      fail();
+    } catch (NullPointerException e) {
+      assertEquals("An array of booleans cannot contain null", e.getMessage());
+    }
+    assertEquals(asList(1L, 2L), a);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void should_widen_values_added_to_primitive_arrays() throws Exception {
+    Map<String, Object> map = new Toml().read("a = [1, 2]\nb = [1.5]").toMap();
+    List<Object> a = (List<Object>) map.get("a");
+    List<Object> b = (List<Object>) map.get("b");
+
+    a.add(3);
+    a.set(0, (short) 0);
+    b.add(2.5f);
+    assertEquals(asList(0L, 2L, 3L), a);
+    assertEquals(asList(1.5, 2.5), b);
+    try {
+      a.add("4");
+      fail();
+    } catch (ClassCastException e) {
+      assertEquals("An array of integers cannot contain java.lang.String", e.getMessage());
+    }
+    try {
+      b.set(0, 1L);
+      fail();
+    } catch (ClassCastException e) {
+      assertEquals("An array of floats cannot contain java.lang.Long", e.getMessage());
+    }
+    assertEquals(asList(0L, 2L, 3L), a);
+    assertEquals(asList(1.5, 2.5), b);
+  }
+
+  @Test
+  public void should_serialize_primitive_arrays() throws Exception {
+    List<Long> list = new Toml().read("a = [1, 2, 3]").getList("a");
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(list);
+    out.close();
+
+    Object copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+    assertEquals(list, copy);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_integer_and_float_in_same_array() throws Exception {
+    new Toml().read("a = [1, 2.0]");
+  }
+
+  @Test
+  public void should_read_deeply_nested_arrays_on_small_stack() throws Exception {
+    final String toml = "a = " + nested("[", 100000) + "1" + nested("]", 100000) + "\nb = 2";
+    final Object[] result = new Object[1];
+    Thread thread = new Thread(null, new Runnable() {
+      @Override
+      public void run() {
+        try {
+          result[0] = new Toml().maxNestingDepth(100000).read(toml);
+        } catch (Throwable e) {
+          result[0] = e;
+        }
+      }
+    }, "small-stack", 128 * 1024);
+    thread.start();
+    thread.join();
+
+    Toml read = (Toml) result[0];
+    assertEquals(2L, read.getLong("b").longValue());
+    Object value = read.getList("a");
+    int depth = 0;
+    while (value instanceof List) {
+      value = ((List<?>) value).get(0);
+      depth++;
+    }
+    assertEquals(100000, depth);
+    assertEquals(1L, value);
+  }
+
+  @Test
+  public void should_fail_on_arrays_nested_deeper_than_limit() throws Exception {
+    assertEquals(256, depth(new Toml().read("a = " + nested("[", 256) + nested("]", 256)).getList("a")));
+
+    try {
+      new Toml().read("x = 1\na = " + nested("[", 257) + nested("]", 257));
+      fail();
+    } catch (TomlParseException e) {
+      TomlError error = e.getErrors().get(0);
+      assertEquals(TomlError.Code.NESTING_TOO_DEEP, error.getCode());
+      assertEquals("a", error.getKey());
+      assertEquals(2, error.getLine());
+      assertEquals(5, error.getColumn());
+    }
+  }
+
+  @Test(expected = TomlParseException.class)
+  public void should_fail_on_nesting_deeper_than_configured_limit() throws Exception {
+    new Toml().maxNestingDepth(2).read("a = [[1], [[2]]]");
+  }
+
+  private static String nested(String s, int depth) {
+    StringBuilder sb = new StringBuilder(s.length() * depth);
+    for (int i = 0; i < depth; i++) {
+      sb.append(s);
+    }
+    return sb.toString();
+  }
+
+  private static int depth(Object value) {
+    int depth = 0;
+    while (value instanceof List && !((List<?>) value).isEmpty()) {
+      value = ((List<?>) value).get(0);
+      depth++;
+    }
+    return value instanceof List ? depth + 1 : depth;
+  }
   
   private File file(String file) {
     return Utils.file(getClass(), file);
@@ -2,6 +2,8 @@ package com.moandjiezana.toml;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -210,5 +212,12 @@ public class BurntSushiInvalidTest {
         Assert.fail("Should have rejected invalid input!");
     } catch (IllegalStateException e) {
     }
+
+    List<String> errors = Toml.validate(new InputStreamReader(getClass().getResourceAsStream("burntsushi/invalid/" + testName + ".toml")));
+    Assert.assertFalse("Should have rejected invalid input!", errors.isEmpty());
+
+    List<TomlError> allErrors = Toml.validateAll(new InputStreamReader(getClass().getResourceAsStream("burntsushi/invalid/" + testName + ".toml")));
+    Assert.assertFalse("Should have rejected invalid input!", allErrors.isEmpty());
+    Assert.assertTrue(errors.get(0), errors.get(0).startsWith(allErrors.get(0).getMessage()));
   }
 }
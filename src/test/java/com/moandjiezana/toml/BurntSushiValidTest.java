@@ -9,6 +9,7 @@ import java.io.Reader;
 import java.lang.reflect.Type;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -264,6 +265,8 @@ public class BurntSushiValidTest {
     JsonElement actual = TEST_GSON.toJsonTree(toml.toMap());
 
     assertEquals(expectedJson, actual);
+    assertEquals(Collections.emptyList(), Toml.validate(inputToml));
+    assertEquals(Collections.emptyList(), Toml.validateAll(inputToml));
 
     try {
       inputTomlStream.close();
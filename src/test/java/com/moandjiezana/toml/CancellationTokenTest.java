@@ -0,0 +1,128 @@
+package com.moandjiezana.toml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.moandjiezana.toml.exception.TomlCancelledException;
+
+public class CancellationTokenTest {
+
+  @Test
+  public void should_read_document_when_not_cancelled() throws Exception {
+    CancellationToken token = CancellationToken.withDeadline(1, TimeUnit.HOURS);
+    Toml toml = new Toml().cancellation(token).read(keys(10000));
+
+    assertEquals(9999L, toml.getLong("a9999").longValue());
+    assertFalse(token.isCancelled());
+  }
+
+  @Test
+  public void should_stop_when_cancelled_during_read() throws Exception {
+    CancellationToken token = new CancellationToken();
+    Toml toml = new Toml();
+
+    try {
+      toml.cancellation(token).read(cancelAfterFirstRead(keys(10000), token));
+      fail();
+    } catch (TomlCancelledException e) {
+      assertFalse(e.isDeadlineExceeded());
+      assertTrue(e.getLine() > 1);
+    }
+    assertTrue(toml.isEmpty());
+  }
+
+  @Test
+  public void should_stop_inside_long_array() throws Exception {
+    StringBuilder sb = new StringBuilder("a = [\n");
+    for (int i = 0; i < 100000; i++) {
+      sb.append(i).append(",\n");
+    }
+    CancellationToken token = new CancellationToken();
+
+    try {
+      new Toml().cancellation(token).read(cancelAfterFirstRead(sb.append("]").toString(), token));
+      fail();
+    } catch (TomlCancelledException e) {
+      assertTrue(e.getLine() > 1);
+    }
+  }
+
+  @Test
+  public void should_stop_inside_long_multiline_string() throws Exception {
+    StringBuilder sb = new StringBuilder("a = '''\n");
+    for (int i = 0; i < 100000; i++) {
+      sb.append("line ").append(i).append('\n');
+    }
+    CancellationToken token = new CancellationToken();
+
+    try {
+      new Toml().cancellation(token).read(cancelAfterFirstRead(sb.append("'''").toString(), token));
+      fail();
+    } catch (TomlCancelledException e) {
+      assertTrue(e.getLine() > 1);
+    }
+  }
+
+  @Test
+  public void should_stop_when_deadline_has_passed() throws Exception {
+    CancellationToken token = CancellationToken.withDeadline(0, TimeUnit.MILLISECONDS);
+
+    try {
+      new Toml().cancellation(token).read(keys(10000).getBytes(StandardCharsets.UTF_8));
+      fail();
+    } catch (TomlCancelledException e) {
+      assertTrue(e.isDeadlineExceeded());
+    }
+  }
+
+  @Test(expected = TomlCancelledException.class)
+  public void should_stop_all_chunks_of_large_document() throws Exception {
+    CancellationToken token = new CancellationToken();
+    token.cancel();
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; sb.length() < 3 * ChunkedParser.MIN_CHUNK_LENGTH; i++) {
+      sb.append("[t").append(i).append("]\na = 1\n");
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try {
+      new Toml().cancellation(token).parallel(executor).read(sb.toString().getBytes(StandardCharsets.UTF_8));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static String keys(int count) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      sb.append("a").append(i).append(" = ").append(i).append('\n');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * 第一次读取之后取消, 解析还没有结束
+   */
+  private static Reader cancelAfterFirstRead(String toml, final CancellationToken token) {
+    return new StringReader(toml) {
+      @Override
+      public int read(char[] cbuf, int off, int len) throws IOException {
+        int read = super.read(cbuf, off, len);
+        token.cancel();
+        return read;
+      }
+    };
+  }
+}
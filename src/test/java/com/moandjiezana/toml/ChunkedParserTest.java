@@ -0,0 +1,125 @@
+package com.moandjiezana.toml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+public class ChunkedParserTest {
+
+  private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+  private static final ParseOptions PARALLEL = ParseOptions.DEFAULT.executor(EXECUTOR);
+
+  private static final String DOCUMENT =
+      "# top comment\n"
+    + "title = \"t\"\n"
+    + "\n"
+    + "# comment of a\n"
+    + "[a]\n"
+    + "text = \"\"\"\n"
+    + "[not.a.table]\n"
+    + "\"\"\"\n"
+    + "array = [\n"
+    + "  [1, 2],\n"
+    + "  # ] [comment]\n"
+    + "  [3]\n"
+    + "]\n"
+    + "[a.b] # right comment\n"
+    + "c = '[x]'\n"
+    + "[[items]]\n"
+    + "name = 1\n"
+    + "  [[items]]\n"
+    + "name = 2\n"
+    + "[items.sub]\n"
+    + "inline = { d = \"]\" }\n"
+    + "# last comment\n";
+
+  @Test
+  public void should_split_at_table_headers_only() throws Exception {
+    List<ChunkedParser.Chunk> chunks = ChunkedParser.split(TomlInput.of(DOCUMENT), 1);
+
+    assertEquals(6, chunks.size());
+    assertEquals(0, chunks.get(0).start);
+    assertEquals(DOCUMENT.indexOf("[a]"), chunks.get(1).start);
+    assertEquals(5, chunks.get(1).line);
+    assertEquals(DOCUMENT.indexOf("[a.b]"), chunks.get(2).start);
+    assertEquals(14, chunks.get(2).line);
+    assertEquals(DOCUMENT.indexOf("[[items]]\nname = 2"), chunks.get(4).start);
+    assertEquals(DOCUMENT.length(), chunks.get(5).end);
+  }
+
+  @Test
+  public void should_parse_same_as_sequential() throws Exception {
+    assertSameAsSequential(TomlInput.of(DOCUMENT));
+    assertSameAsSequential(TomlInput.utf8(ByteBuffer.wrap(DOCUMENT.getBytes("UTF-8"))));
+    for (String file : new String[] { "example.toml", "hard_example.toml", "example-v0.4.0.toml", "fruit_table_array.toml", "should_parse_table_array_out_of_order.toml" }) {
+      assertSameAsSequential(TomlInput.of(resource(file)));
+    }
+  }
+
+  @Test
+  public void should_report_errors_across_chunks_like_sequential() throws Exception {
+    for (String toml : new String[] { "[a]\nb = 1\n[c]\nd = 2\n[a]\ne = 3", "[a]\nb = 1\n[a.b]\nc = 2", "[a]\nb = 1\n[c]\nd = 2 x\n[e]\n", "[a]\nb = [1,\n[c]\nd = 2" }) {
+      Results sequential = TomlParser.run(TomlInput.of(toml), new Cursor(), new Results());
+      Results chunked = ChunkedParser.run(TomlInput.of(toml), 2, 1, PARALLEL);
+
+      assertTrue(toml, sequential.errors.hasErrors());
+      assertEquals(toml, sequential.errors.toString(), chunked.errors.toString());
+    }
+  }
+
+  @Test
+  public void should_parse_large_document_on_given_executor_only() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; sb.length() < 3 * ChunkedParser.MIN_CHUNK_LENGTH; i++) {
+      sb.append("[t").append(i).append("]\na = ").append(i).append('\n');
+    }
+    byte[] bytes = sb.toString().getBytes("UTF-8");
+
+    long tasks = EXECUTOR.getTaskCount();
+    Toml sequential = new Toml().read(bytes);
+    assertEquals(tasks, EXECUTOR.getTaskCount());
+    Toml parallel = new Toml().parallel(EXECUTOR).read(bytes);
+    assertTrue(EXECUTOR.getTaskCount() > tasks);
+    assertEquals(sequential.toMap(), parallel.toMap());
+  }
+
+  @AfterClass
+  public static void shutdown() {
+    EXECUTOR.shutdown();
+  }
+
+  private static void assertSameAsSequential(TomlInput input) throws Exception {
+    Results sequential = TomlParser.run(input, new Cursor(), new Results());
+    Results chunked = ChunkedParser.run(input, 2, 1, PARALLEL);
+
+    assertEquals(sequential.errors.toString(), chunked.errors.toString());
+    assertEquals(sequential.getLastContainer().getValueMap(), chunked.getLastContainer().getValueMap());
+    assertEquals(write(sequential), write(chunked));
+  }
+
+  private static String write(Results results) throws Exception {
+    StringWriter writer = new StringWriter();
+    new TomlWriter().write(new TomlContainer(results.getLastContainer(), results.getLastComment()), writer);
+    return writer.toString();
+  }
+
+  private String resource(String name) throws Exception {
+    Reader reader = new InputStreamReader(getClass().getResourceAsStream(name), "UTF-8");
+    Scanner scanner = new Scanner(reader).useDelimiter("\\A");
+    String toml = scanner.hasNext() ? scanner.next() : "";
+    scanner.close();
+    return toml;
+  }
+}
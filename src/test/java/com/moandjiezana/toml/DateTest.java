@@ -2,7 +2,15 @@ package com.moandjiezana.toml;
 
 import static org.junit.Assert.assertEquals;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.TimeZone;
 
 import org.junit.Test;
@@ -70,4 +78,68 @@ public class DateTest {
   public void should_fail_on_non_existant_date() throws Exception {
     new Toml().read("d = 2012-13-01T15:00:00Z");
   }
+
+  @Test
+  public void should_get_date_with_short_and_long_fractional_seconds() throws Exception {
+    Toml toml = new Toml().read("a = 1979-05-27T00:32:00.5Z\nb = 1979-05-27T00:32:00.123456789Z");
+
+    Calendar calendar = Calendar.getInstance(UTC);
+    calendar.set(1979, Calendar.MAY, 27, 0, 32, 00);
+    calendar.set(Calendar.MILLISECOND, 500);
+    assertEquals(calendar.getTime(), toml.getDate("a"));
+    calendar.set(Calendar.MILLISECOND, 123);
+    assertEquals(calendar.getTime(), toml.getDate("b"));
+  }
+
+  @Test
+  public void should_get_leap_day() throws Exception {
+    Toml toml = new Toml().read("a_date = 2000-02-29T23:59:59+01:30");
+
+    Calendar calendar = Calendar.getInstance(UTC);
+    calendar.set(2000, Calendar.FEBRUARY, 29, 22, 29, 59);
+    calendar.set(Calendar.MILLISECOND, 0);
+
+    assertEquals(calendar.getTime(), toml.getDate("a_date"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_leap_day_of_common_year() throws Exception {
+    new Toml().read("d = 1900-02-29T15:00:00Z");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_text_after_offset() throws Exception {
+    new Toml().read("d = 2012-12-01T15:00:00Z5");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_local_date_without_java_time() throws Exception {
+    new Toml().read("d = 2012-12-01");
+  }
+
+  @Test
+  public void should_get_java_time_values() throws Exception {
+    Toml toml = new Toml().useJavaTime(true).read("odt = 1979-05-27T00:32:00.999-07:00\nldt = 1979-05-27T07:32:00\nld = 1979-05-27\nlt = 07:32:00.5\narray = [ 00:32:00, 23:59:59 ]");
+    Map<String, Object> map = toml.toMap();
+
+    assertEquals(OffsetDateTime.of(1979, 5, 27, 0, 32, 0, 999000000, ZoneOffset.ofHours(-7)), map.get("odt"));
+    assertEquals(LocalDateTime.of(1979, 5, 27, 7, 32), map.get("ldt"));
+    assertEquals(LocalDate.of(1979, 5, 27), map.get("ld"));
+    assertEquals(LocalTime.of(7, 32, 0, 500000000), map.get("lt"));
+    assertEquals(Arrays.asList(LocalTime.of(0, 32), LocalTime.of(23, 59, 59)), map.get("array"));
+  }
+
+  @Test
+  public void should_write_java_time_values() throws Exception {
+    Map<String, Object> map = new LinkedHashMap<String, Object>();
+    map.put("odt", OffsetDateTime.of(1979, 5, 27, 0, 32, 0, 0, ZoneOffset.UTC));
+    map.put("ldt", LocalDateTime.of(1979, 5, 27, 7, 32, 0, 1000));
+    map.put("ld", LocalDate.of(1979, 5, 27));
+    map.put("lt", LocalTime.of(7, 32));
+
+    String toml = new TomlWriter().write(map);
+
+    assertEquals("odt = 1979-05-27T00:32:00Z\nldt = 1979-05-27T07:32:00.000001\nld = 1979-05-27\nlt = 07:32:00\n", toml);
+    assertEquals(map, new Toml().useJavaTime(true).read(toml).toMap());
+  }
 }
@@ -1,9 +1,19 @@
 package com.moandjiezana.toml;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import com.moandjiezana.toml.exception.TomlParseException;
+
 public class ErrorMessagesTest {
 
   @Rule
@@ -130,4 +140,124 @@ public class ErrorMessagesTest {
     
     new Toml().read("[table]\n\n k = [\"\"\"\nabc\n\ndef\n\"\"\"\n, \n # comment \n j = 4.,\n l = 5\n]");
   }
+
+  @Test
+  public void should_validate_with_same_messages_as_read() throws Exception {
+    String[] invalid = { "[again]\n[again]", "k = 1\n  k = 2", "a = [1, 2.0]", "a = [{b = 1}]\n[a.b]", "a = {b = 1, b = 2}", "a = \"\\q\"", "[a]\nb = 1\n[a.b]" };
+    for (String toml : invalid) {
+      String message = null;
+      try {
+        new Toml().read(toml);
+      } catch (IllegalStateException ise) {
+        message = ise.getMessage();
+      }
+
+      assertNotNull(toml, message);
+      assertEquals(toml, Collections.singletonList(message), Toml.validate(toml));
+    }
+    assertEquals(Collections.emptyList(), Toml.validate("a = [{b = 1}]\n[[a]]\nb = 2\nc = [[1], [\"b\"]]\nd = 1979-05-27T07:32:00Z"));
+  }
+
+  @Test
+  public void should_report_every_error_when_validating_all() throws Exception {
+    List<TomlError> errors = Toml.validateAll("a = 1 x\n"
+      + "b = \"unterminated\n"
+      + "c = [1, \"2\"]\n"
+      + "[d]\n"
+      + "e = 1\n"
+      + "[d]\n"
+      + "e = 2\n"
+      + "[f\n"
+      + "e = 3\n"
+      + "[g]\n"
+      + "e = 4\n"
+      + "e = 5 # duplicate");
+
+    assertEquals(errors.toString(), 6, errors.size());
+    assertEquals(TomlError.Code.INVALID_TEXT_AFTER_VALUE, errors.get(0).getCode());
+    assertEquals(1, errors.get(0).getLine());
+    assertEquals(TomlError.Code.UNTERMINATED_VALUE, errors.get(1).getCode());
+    assertEquals(2, errors.get(1).getLine());
+    assertEquals(TomlError.Code.HETEROGENEOUS_ARRAY, errors.get(2).getCode());
+    assertEquals(3, errors.get(2).getLine());
+    assertEquals(TomlError.Code.DUPLICATE_TABLE, errors.get(3).getCode());
+    assertEquals(6, errors.get(3).getLine());
+    assertEquals(TomlError.Code.INVALID_TABLE, errors.get(4).getCode());
+    assertEquals(8, errors.get(4).getLine());
+    assertEquals(TomlError.Code.DUPLICATE_KEY, errors.get(5).getCode());
+    assertEquals(12, errors.get(5).getLine());
+    assertEquals(Collections.emptyList(), Toml.validateAll("a = 1\n[b]\nc = [1, 2]"));
+  }
+
+  @Test
+  public void should_report_invalid_escape_in_keys() throws Exception {
+    List<TomlError> errors = Toml.validateAll("\"a\\q\" = 1\n"
+      + "[\"a\\q\"]\n"
+      + "t = {\"a\\q\" = 1}\n"
+      + "[[\"a\\q\"]]\n"
+      + "b = 1");
+
+    assertEquals(errors.toString(), 4, errors.size());
+    assertEquals(TomlError.Code.INVALID_KEY, errors.get(0).getCode());
+    assertEquals(TomlError.Code.INVALID_TABLE, errors.get(1).getCode());
+    assertEquals(2, errors.get(1).getLine());
+    assertEquals(TomlError.Code.INVALID_KEY, errors.get(2).getCode());
+    assertEquals(3, errors.get(2).getLine());
+    assertEquals(TomlError.Code.INVALID_TABLE_ARRAY, errors.get(3).getCode());
+    for (String toml : new String[] { "\"a\\q\" = 1", "[\"a\\q\"]", "t = {\"a\\q\" = 1}" }) {
+      try {
+        new Toml().read(toml);
+        fail(toml);
+      } catch (TomlParseException e) {
+        assertEquals(1, e.getErrors().size());
+      }
+      try {
+        TomlEventReader reader = new TomlEventReader(new StringReader(toml));
+        while (reader.hasNext()) {
+          reader.next();
+        }
+        fail(toml);
+      } catch (TomlParseException e) {
+        assertEquals(1, e.getErrors().size());
+      }
+    }
+  }
+
+  @Test
+  public void should_expose_errors_in_exception() throws Exception {
+    try {
+      new Toml().read("a = 1\n[b]\n  c = 1 x");
+    } catch (TomlParseException tpe) {
+      assertEquals(1, tpe.getErrors().size());
+      TomlError error = tpe.getErrors().get(0);
+      assertEquals(TomlError.Code.INVALID_TEXT_AFTER_VALUE, error.getCode());
+      assertEquals("c", error.getKey());
+      assertEquals(3, error.getLine());
+      assertEquals(9, error.getColumn());
+      assertEquals(18, error.getOffset());
+      assertEquals(error.getMessage(), tpe.getMessage());
+      return;
+    }
+    fail();
+  }
+
+  @Test
+  public void should_cap_excerpt_of_unterminated_value() throws Exception {
+    StringBuilder toml = new StringBuilder("a = 1\n  k = [1, 2");
+    for (int i = 0; i < 100000; i++) {
+      toml.append(", ").append(i);
+    }
+    try {
+      new Toml().read(toml.toString());
+    } catch (TomlParseException tpe) {
+      TomlError error = tpe.getErrors().get(0);
+      assertEquals(TomlError.Code.UNTERMINATED_VALUE, error.getCode());
+      assertEquals("[1, 2, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10,...", error.getExcerpt());
+      assertEquals(2, error.getLine());
+      assertEquals(7, error.getColumn());
+      assertEquals("Unterminated value on line 2: k = " + error.getExcerpt(), tpe.getMessage());
+      return;
+    }
+    fail();
+  }
 }
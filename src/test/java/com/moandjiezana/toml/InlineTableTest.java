@@ -6,6 +6,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.Calendar;
 import java.util.List;
@@ -16,6 +17,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import com.moandjiezana.toml.exception.TomlParseException;
+
 public class InlineTableTest {
 
   private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
@@ -176,6 +179,19 @@ public class InlineTableTest {
 
   }
   
+  @Test
+  public void should_report_invalid_bare_key() throws Exception {
+    try {
+      new Toml().read("tbl = { a = 1, b$c = 2 }");
+      fail();
+    } catch (TomlParseException e) {
+      TomlError error = e.getErrors().get(0);
+      assertEquals(TomlError.Code.INVALID_KEY, error.getCode());
+      assertEquals("b$c", error.getExcerpt());
+      assertEquals("Invalid key on line 1: b$c", error.getMessage());
+    }
+  }
+  
   @Test(expected = IllegalStateException.class)
   public void should_fail_when_unterminated() throws Exception {
     new Toml().read("tbl = { a = 1 ");
@@ -242,4 +258,43 @@ public class InlineTableTest {
     
     new Toml().read("[a]\n b = {}\n  [a.b]");
   }
+
+  @Test
+  public void should_read_deeply_nested_inline_tables_on_small_stack() throws Exception {
+    StringBuilder toml = new StringBuilder("a = ");
+    StringBuilder key = new StringBuilder("a");
+    for (int i = 0; i < 20000; i++) {
+      toml.append("{ b = [1], c = ");
+      key.append(".c");
+    }
+    toml.append('1');
+    for (int i = 0; i < 20000; i++) {
+      toml.append(" }");
+    }
+    final String document = toml.toString();
+    final Object[] result = new Object[1];
+    Thread thread = new Thread(null, new Runnable() {
+      @Override
+      public void run() {
+        try {
+          result[0] = new Toml().maxNestingDepth(40001).read(document);
+        } catch (Throwable e) {
+          result[0] = e;
+        }
+      }
+    }, "small-stack", 128 * 1024);
+    thread.start();
+    thread.join();
+
+    Toml read = (Toml) result[0];
+    assertEquals(1L, read.getLong(key.toString()).longValue());
+  }
+
+  @Test
+  public void should_fail_on_inline_tables_nested_deeper_than_limit() throws Exception {
+    e.expect(TomlParseException.class);
+    e.expectMessage("Arrays and inline tables nested too deeply on line 1: a = { b = [ { c = 1 } ] }");
+
+    new Toml().maxNestingDepth(2).read("a = { b = [ { c = 1 } ] }");
+  }
 }
@@ -0,0 +1,37 @@
+package com.moandjiezana.toml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LexerTest {
+
+  @Test
+  public void should_classify_whitespace_like_java() throws Exception {
+    for (char c = 0; c < 0x3000 + 1; c++) {
+      assertEquals(Integer.toHexString(c), Character.isWhitespace(c), Lexer.isWhitespace(c));
+    }
+  }
+
+  @Test
+  public void should_recognise_bare_keys() throws Exception {
+    assertTrue(Lexer.isBareKey("a-B_9"));
+    assertFalse(Lexer.isBareKey(""));
+    assertFalse(Lexer.isBareKey("a.b"));
+    assertFalse(Lexer.isBareKey("ʎǝʞ"));
+    assertTrue(Lexer.isDottedBareKey("a.b-c"));
+    assertFalse(Lexer.isDottedBareKey(".a"));
+    assertFalse(Lexer.isDottedBareKey("a."));
+    assertFalse(Lexer.isDottedBareKey("a b"));
+  }
+
+  @Test
+  public void should_scan_bare_key() throws Exception {
+    TomlInput input = TomlInput.of("[a_b-1.c]");
+
+    assertEquals(6, Lexer.scanBareKey(input, 1));
+    assertEquals(7, Lexer.skipWhitespace(TomlInput.of("key \t\n = 1"), 3));
+  }
+}
@@ -0,0 +1,95 @@
+package com.moandjiezana.toml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Parsing 16 times more input must take roughly 16 times longer, not 256 times as a quadratic path would.
+ * Wall-clock ratios are unreliable on a loaded machine, so they are only checked when running with
+ * <code>mvn test -Dtest=LinearTimeTest -DlinearTime=true</code>. The default build only reads the large inputs,
+ * and the timeout catches a quadratic or endless parse.
+ */
+public class LinearTimeTest {
+
+  private static final int SIZE = 16 * 1024;
+  private static final int FACTOR = 16;
+  // 线性是 16, 二次是 256
+  private static final int MAX_RATIO = 4 * FACTOR;
+  private static final boolean TIMED = Boolean.getBoolean("linearTime");
+
+  @Test(timeout = 60000)
+  public void should_parse_long_backslash_runs_in_linear_time() throws Exception {
+    assertLinear("backslashes");
+  }
+
+  @Test(timeout = 60000)
+  public void should_parse_inline_tables_under_deep_header_in_linear_time() throws Exception {
+    assertLinear("deepHeader");
+  }
+
+  @Test(timeout = 60000)
+  public void should_parse_huge_inline_table_in_linear_time() throws Exception {
+    assertLinear("hugeInlineTable");
+  }
+
+  @Test(timeout = 60000)
+  public void should_parse_long_keys_in_linear_time() throws Exception {
+    assertLinear("longKeys");
+  }
+
+  @Test(timeout = 60000)
+  public void should_parse_deep_table_arrays_in_linear_time() throws Exception {
+    assertLinear("deepTableArrays");
+  }
+
+  @Test
+  public void should_read_adversarial_inputs() throws Exception {
+    Toml deepHeader = new Toml().read(AdversarialInputs.deepHeader(64));
+    Map<String, Object> table = deepHeader.toMap();
+    while (table.containsKey("a")) {
+      @SuppressWarnings("unchecked")
+      Map<String, Object> next = (Map<String, Object>) table.get("a");
+      table = next;
+    }
+    assertEquals(1L, ((Map<?, ?>) ((Map<?, ?>) table.get("k0")).get("x")).get("y"));
+
+    Toml tableArrays = new Toml().read(AdversarialInputs.deepTableArrays(4096));
+    List<Toml> elements = tableArrays.getTables("a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a.a");
+    assertEquals(elements.size() - 1, elements.get(elements.size() - 1).getLong("x").longValue());
+
+    assertEquals(1000, new Toml().read(AdversarialInputs.hugeInlineTable(12000)).getTable("t").toMap().size(), 200);
+  }
+
+  private static void assertLinear(String kind) {
+    String large = AdversarialInputs.generate(kind, SIZE * FACTOR);
+    if (!TIMED) {
+      new Toml().read(large);
+      return;
+    }
+    String small = AdversarialInputs.generate(kind, SIZE);
+    // 先让 JIT 编译
+    for (int i = 0; i < 3; i++) {
+      new Toml().read(large);
+    }
+    long smallTime = bestTime(small);
+    long largeTime = bestTime(large);
+
+    assertTrue(kind + " took " + smallTime + "ns for " + small.length() + " chars and " + largeTime + "ns for " + large.length() + " chars",
+      largeTime < MAX_RATIO * Math.max(smallTime, 1));
+  }
+
+  private static long bestTime(String toml) {
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < 5; i++) {
+      long start = System.nanoTime();
+      new Toml().read(toml);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+}
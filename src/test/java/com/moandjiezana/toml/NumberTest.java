@@ -207,4 +207,33 @@ public class NumberTest {
   public void should_fail_on_underscore_followed_by_whitespace() {
     new Toml().read("answer = _ 1");
   }
+
+  @Test
+  public void should_get_long_limits() throws Exception {
+    Toml toml = new Toml().read("max = 9_223_372_036_854_775_807\nmin = -9223372036854775808");
+
+    assertEquals(Long.MAX_VALUE, toml.getLong("max").longValue());
+    assertEquals(Long.MIN_VALUE, toml.getLong("min").longValue());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_integer_above_long_range() {
+    new Toml().read("a = 9223372036854775808");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_integer_below_long_range() {
+    new Toml().read("a = -9223372036854775809");
+  }
+
+  @Test
+  public void should_get_same_doubles_as_java() throws Exception {
+    String[] doubles = { "0.1", "-0.0", "0.0e5", "1_000.000_1", "3.14159265358979", "3.141592653589793238", "1e22", "1e23", "9007199254740993.0",
+      "2.2250738585072014e-308", "4.9e-324", "1.7976931348623157e308", "1e400", "123456789012345.6e-7", "0.000000000000000000000000001" };
+    for (String d : doubles) {
+      Toml toml = new Toml().read("a = " + d);
+
+      assertEquals(d, Double.valueOf(d.replace("_", "")), toml.getDouble("a"));
+    }
+  }
 }
@@ -0,0 +1,225 @@
+package com.moandjiezana.toml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.moandjiezana.toml.exception.TomlParseException;
+
+public class ParseLimitsTest {
+
+  @Test
+  public void should_fail_on_document_longer_than_limit() throws Exception {
+    ParseLimits limits = new ParseLimits.Builder().maxDocumentLength(10).build();
+
+    assertEquals("abc", new Toml().limits(limits).read("a = \"abc\"").getString("a"));
+    assertError(TomlError.Code.DOCUMENT_TOO_LONG, -1, new Toml().limits(limits), "a = \"abcd\"\n");
+    assertEquals("Document exceeds the maximum length of 10 characters",
+      error(new Toml().limits(limits), "a = \"abcd\"\n").getMessage());
+  }
+
+  @Test
+  public void should_fail_on_streamed_document_longer_than_limit() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      sb.append("a").append(i).append(" = ").append(i).append('\n');
+    }
+    ParseLimits limits = new ParseLimits.Builder().maxDocumentLength(1000).build();
+
+    try {
+      new Toml().limits(limits).read(new StringReader(sb.toString()));
+      fail();
+    } catch (TomlParseException e) {
+      assertEquals(1, e.getErrors().size());
+      assertEquals(TomlError.Code.DOCUMENT_TOO_LONG, e.getErrors().get(0).getCode());
+    }
+  }
+
+  @Test
+  public void should_read_streamed_document_as_long_as_limit() throws Exception {
+    ParseLimits limits = new ParseLimits.Builder().maxDocumentLength(9).build();
+
+    assertEquals("abc", new Toml().limits(limits).read(new StringReader("a = \"abc\"")).getString("a"));
+    assertEquals("ab", new Toml().limits(limits).read(new StringReader("a = 'ab'\n")).getString("a"));
+    try {
+      new Toml().limits(limits).read(new StringReader("a = 'abc'\n"));
+      fail();
+    } catch (TomlParseException e) {
+      assertEquals(TomlError.Code.DOCUMENT_TOO_LONG, e.getErrors().get(0).getCode());
+    }
+  }
+
+  @Test
+  public void should_report_streamed_document_longer_than_limit_with_other_errors() throws Exception {
+    ParseOptions options = ParseOptions.VALIDATE.recover(true).limits(new ParseLimits.Builder().maxDocumentLength(20).build());
+    String toml = "a = 1\na = 2\nb = \"abcdefghijk\"\n";
+
+    List<TomlError> errors = TomlParser.run(TomlInput.stream(new StringReader(toml), 16), new Cursor(), new Results(), options).errors.list();
+
+    assertEquals(2, errors.size());
+    assertEquals(TomlError.Code.DUPLICATE_KEY, errors.get(0).getCode());
+    assertEquals(TomlError.Code.DOCUMENT_TOO_LONG, errors.get(1).getCode());
+    assertEquals(TomlError.Code.DOCUMENT_TOO_LONG,
+      TomlParser.run(TomlInput.of(toml), new Cursor(), new Results(), options).errors.list().get(0).getCode());
+  }
+
+  @Test
+  public void should_fail_on_string_longer_than_limit() throws Exception {
+    Toml toml = new Toml().limits(new ParseLimits.Builder().maxStringLength(3).build());
+
+    assertEquals("a\\c", toml.read("a = 'a\\c'\nb = \"\"\"\nabc\"\"\"\nc = '''\nab\\'''").getString("a"));
+    TomlError error = assertError(TomlError.Code.STRING_TOO_LONG, 2, toml, "x = 1\na = \"abcd\"");
+    assertEquals("a", error.getKey());
+    assertEquals(5, error.getColumn());
+    assertError(TomlError.Code.STRING_TOO_LONG, 1, toml, "a = 'abcd'");
+    assertError(TomlError.Code.STRING_TOO_LONG, 1, toml, "a = '''ab\ncd'''");
+    assertError(TomlError.Code.STRING_TOO_LONG, 1, toml, "a = [\"abc\", \"abcd\"]");
+    assertError(TomlError.Code.STRING_TOO_LONG, 1, toml, "a = { b = \"abcd\" }");
+    assertError(TomlError.Code.STRING_TOO_LONG, 1, toml, "a = \"\"\"ab\\\n\n\n  c\"\"\"");
+  }
+
+  @Test
+  public void should_stop_reading_string_at_limit() throws Exception {
+    final int[] read = new int[1];
+    StringBuilder sb = new StringBuilder("a = \"");
+    for (int i = 0; i < 4 * 1024 * 1024; i++) {
+      sb.append('x');
+    }
+    Reader reader = new StringReader(sb.append("\"\n").toString()) {
+      @Override
+      public int read(char[] cbuf, int off, int len) throws IOException {
+        int n = super.read(cbuf, off, len);
+        read[0] += Math.max(n, 0);
+        return n;
+      }
+    };
+
+    try {
+      new Toml().limits(new ParseLimits.Builder().maxStringLength(1000).build()).read(reader);
+      fail();
+    } catch (TomlParseException e) {
+      assertEquals(TomlError.Code.STRING_TOO_LONG, e.getErrors().get(0).getCode());
+    }
+    assertTrue(String.valueOf(read[0]), read[0] <= 2 * Toml.STREAM_WINDOW_SIZE);
+  }
+
+  @Test
+  public void should_stop_reading_array_after_string_longer_than_limit() throws Exception {
+    Toml toml = new Toml().limits(new ParseLimits.Builder().maxStringLength(3).build());
+
+    TomlError error = error(toml, "a = [\"abcd\", \"abcd\", 1.0]");
+    assertEquals(TomlError.Code.STRING_TOO_LONG, error.getCode());
+  }
+
+  @Test
+  public void should_fail_on_array_longer_than_limit() throws Exception {
+    Toml toml = new Toml().limits(new ParseLimits.Builder().maxArrayLength(3).build());
+
+    assertEquals(3, toml.read("a = [1, 2, 3]\nb = [[1, 2], [3]]").getList("a").size());
+    TomlError error = assertError(TomlError.Code.ARRAY_TOO_LONG, 1, toml, "a = [1, 2, 3, 4]");
+    assertEquals("Array exceeds the maximum length on line 1: a = [1, 2, 3, 4]", error.getMessage());
+    assertError(TomlError.Code.ARRAY_TOO_LONG, 1, toml, "a = [[1], [1, 2, 3, 4]]");
+  }
+
+  @Test
+  public void should_fail_on_table_with_more_keys_than_limit() throws Exception {
+    Toml toml = new Toml().limits(new ParseLimits.Builder().maxKeysPerTable(2).build());
+
+    assertEquals(2L, toml.read("a = 1\n[c]\nd = { e = 1, f = 2 }").getLong("c.d.f").longValue());
+    TomlError error = assertError(TomlError.Code.TOO_MANY_KEYS, 3, toml, "a = 1\nb = 2\nc = 3");
+    assertEquals("Key c exceeds the maximum number of keys in the root table on line 3", error.getMessage());
+    error = assertError(TomlError.Code.TOO_MANY_KEYS, 4, toml, "[server]\nhost = 1\nport = 2\ntimeout = 3");
+    assertEquals("timeout", error.getKey());
+    assertEquals("server", error.getExcerpt());
+    assertEquals("Key timeout exceeds the maximum number of keys in table server on line 4", error.getMessage());
+    error = assertError(TomlError.Code.TOO_MANY_KEYS, 3, toml, "a = 1\nb = 2\n[c.d]");
+    assertEquals("c", error.getKey());
+    assertEquals("", error.getExcerpt());
+    error = assertError(TomlError.Code.TOO_MANY_KEYS, 5, toml, "[[a]]\n[a.b]\nc = 1\nd = 2\ne = 3");
+    assertEquals("Key e exceeds the maximum number of keys in table a.b on line 5", error.getMessage());
+    error = assertError(TomlError.Code.TOO_MANY_KEYS, 1, toml, "a = { b = 1, c = 2, d = 3 }");
+    assertEquals("d", error.getKey());
+    assertEquals("a", error.getExcerpt());
+  }
+
+  @Test
+  public void should_fail_on_document_with_more_nodes_than_limit() throws Exception {
+    Toml toml = new Toml().limits(new ParseLimits.Builder().maxTotalNodes(5).build());
+
+    assertEquals(3, toml.read("[a]\nb = [1, 2, 3]").getList("a.b").size());
+    assertError(TomlError.Code.TOO_MANY_NODES, 3, toml, "[a]\nb = 1\nc = [1, 2, 3]");
+    assertError(TomlError.Code.TOO_MANY_NODES, 1, toml, "a = { b = 1, c = { d = 2, e = 3 }, f = 4 }");
+  }
+
+  @Test
+  public void should_count_nodes_across_the_whole_document() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; sb.length() < 3 * ChunkedParser.MIN_CHUNK_LENGTH; i++) {
+      sb.append("[t").append(i).append("]\na = 1\n");
+    }
+    int nodes = sb.toString().split("\n").length;
+    byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try {
+      new Toml().parallel(executor).limits(new ParseLimits.Builder().maxTotalNodes(nodes).build()).read(bytes);
+      new Toml().parallel(executor).limits(new ParseLimits.Builder().maxTotalNodes(nodes - 1).build()).read(bytes);
+      fail();
+    } catch (TomlParseException e) {
+      assertEquals(TomlError.Code.TOO_MANY_NODES, e.getErrors().get(0).getCode());
+      assertEquals(nodes, e.getErrors().get(0).getLine());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void should_fail_on_table_array_with_more_elements_than_limit() throws Exception {
+    Toml toml = new Toml().limits(new ParseLimits.Builder().maxTableArrayElements(2).build());
+
+    assertEquals(2, toml.read("[[a]]\n[[a]]\nb = [{ c = 1 }, { c = 2 }]").getTables("a").size());
+    TomlError error = assertError(TomlError.Code.TOO_MANY_TABLE_ARRAY_ELEMENTS, 3, toml, "[[a]]\n[[a]]\n[[a]]");
+    assertEquals("Table array exceeds the maximum number of elements on line 3: a", error.getMessage());
+    assertError(TomlError.Code.TOO_MANY_TABLE_ARRAY_ELEMENTS, 1, toml, "b = [{ c = 1 }, { c = 2 }, { c = 3 }]");
+  }
+
+  @Test
+  public void should_keep_other_limits_when_setting_nesting_depth() throws Exception {
+    Toml toml = new Toml().limits(new ParseLimits.Builder().maxArrayLength(1).build()).maxNestingDepth(1);
+
+    assertError(TomlError.Code.ARRAY_TOO_LONG, 1, toml, "a = [1, 2]");
+    assertError(TomlError.Code.NESTING_TOO_DEEP, 1, toml, "a = [[1]]");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void should_reject_limit_below_one() throws Exception {
+    new ParseLimits.Builder().maxStringLength(0);
+  }
+
+  private static TomlError assertError(TomlError.Code code, int line, Toml toml, String tomlString) {
+    TomlError error = error(toml, tomlString);
+    assertEquals(error.getMessage(), code, error.getCode());
+    assertEquals(error.getMessage(), line, error.getLine());
+    return error;
+  }
+
+  private static TomlError error(Toml toml, String tomlString) {
+    try {
+      toml.read(tomlString);
+    } catch (TomlParseException e) {
+      return e.getErrors().get(0);
+    }
+    throw new AssertionError("no error in " + tomlString);
+  }
+}
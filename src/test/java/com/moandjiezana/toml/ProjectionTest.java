@@ -0,0 +1,90 @@
+package com.moandjiezana.toml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ProjectionTest {
+
+  private static final String DOCUMENT =
+      "title = \"t\"\n"
+    + "owner = \"o\"\n"
+    + "[database]\n"
+    + "server = \"192.168.1.1\"\n"
+    + "ports = [8001, 8002]\n"
+    + "[database.pool]\n"
+    + "size = 5\n"
+    + "[[servers]]\n"
+    + "ip = \"10.0.0.1\"\n"
+    + "dc = \"eqdc10\"\n"
+    + "[[servers]]\n"
+    + "ip = \"10.0.0.2\"\n"
+    + "dc = \"eqdc20\"\n"
+    + "[clients]\n"
+    + "data = [[\"gamma\", \"delta\"], [1, 2]]\n";
+
+  @Test
+  public void should_match_paths() throws Exception {
+    Projection projection = Projection.compile(Arrays.asList("database.*", "servers[*].ip"));
+    List<String> root = Collections.emptyList();
+
+    assertTrue(projection.includes(root, "database"));
+    assertFalse(projection.includes(root, "title"));
+    assertTrue(projection.includes(Arrays.asList("database"), null));
+    assertTrue(projection.includes(Arrays.asList("database", "pool"), "size"));
+    assertTrue(projection.includes(Arrays.asList("servers"), null));
+    assertTrue(projection.includes(Arrays.asList("servers"), "ip"));
+    assertFalse(projection.includes(Arrays.asList("servers"), "dc"));
+    assertFalse(projection.includes(Arrays.asList("clients"), null));
+  }
+
+  @Test
+  public void should_read_selected_paths_only() throws Exception {
+    Toml toml = new Toml().select("title", "database.*", "servers[*].ip").read(DOCUMENT);
+
+    assertEquals("t", toml.getString("title"));
+    assertNull(toml.getString("owner"));
+    assertEquals("192.168.1.1", toml.getString("database.server"));
+    assertEquals(Arrays.asList(8001L, 8002L), toml.getList("database.ports"));
+    assertEquals(5L, toml.getLong("database.pool.size").longValue());
+    assertEquals("10.0.0.2", toml.getString("servers[1].ip"));
+    assertNull(toml.getString("servers[1].dc"));
+    assertFalse(toml.contains("clients"));
+  }
+
+  @Test
+  public void should_read_whole_table() throws Exception {
+    Map<String, Object> map = new Toml().select("database.pool").read(DOCUMENT).toMap();
+
+    assertEquals(Collections.singleton("database"), map.keySet());
+    assertEquals(Collections.singletonMap("pool", Collections.singletonMap("size", 5L)), map.get("database"));
+  }
+
+  @Test
+  public void should_read_everything_without_paths() throws Exception {
+    assertEquals(new Toml().read(DOCUMENT).toMap(), new Toml().select().read(DOCUMENT).toMap());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_invalid_value_outside_of_selection() throws Exception {
+    new Toml().select("title").read("title = \"t\"\n[other]\na = 1 b");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_invalid_escape_outside_of_selection() throws Exception {
+    new Toml().select("title").read("title = \"t\"\na = \"\\x\"");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void should_fail_on_empty_key_in_path() throws Exception {
+    new Toml().select("a..b");
+  }
+}
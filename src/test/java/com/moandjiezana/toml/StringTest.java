@@ -2,6 +2,7 @@ package com.moandjiezana.toml;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 
@@ -128,4 +129,71 @@ public class StringTest {
   private File file(String file) {
     return Utils.file(getClass(), file);
   }
+
+  @Test
+  public void should_get_escape_heavy_strings() throws Exception {
+    Toml toml = new Toml().read("path = \"C:\\\\Users\\\\nodejs\\\\templates\\\\\"\nregex = \"^\\\\d+\\\\.\\\\\\\"[a-z]\\\\\\\"$\"\nmixed = \"\\u00b1\\t\\\"x\\\"\\u00B1\"");
+
+    assertEquals("C:\\Users\\nodejs\\templates\\", toml.getString("path"));
+    assertEquals("^\\d+\\.\\\"[a-z]\\\"$", toml.getString("regex"));
+    assertEquals("\u00b1\t\"x\"\u00b1", toml.getString("mixed"));
+  }
+
+  @Test
+  public void should_decode_escapes_in_bytes() throws Exception {
+    Toml toml = new Toml().read("a = \"é\\u00e9\\\\é\"".getBytes("UTF-8"));
+
+    assertEquals("\u00e9\u00e9\\\u00e9", toml.getString("a"));
+  }
+
+  @Test
+  public void should_read_long_runs_of_backslashes() throws Exception {
+    StringBuilder value = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      value.append("\\\\\\\"");
+    }
+    Toml toml = new Toml().read("a = \"" + value + "\"");
+
+    assertEquals(200000, toml.getString("a").length());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_invalid_unicode_escape() throws Exception {
+    new Toml().read("a = \"\\u00g1\"");
+  }
+
+  @Test
+  public void should_handle_backslashes_in_multiline_string() throws Exception {
+    Toml toml = new Toml().read("a = \"\"\"\nescaped\\\\\nbackslash \"\"\"\n"
+      + "b = \"\"\"line \\   \n\n   ending \\\n backslash \"\"\"\n"
+      + "c = \"\"\"quote \\\"\"\"\"\n"
+      + "d = \"\"\"\\u00b1\\t\"\"\"\n"
+      + "e = 1");
+
+    assertEquals("escaped\\\nbackslash ", toml.getString("a"));
+    assertEquals("line ending backslash ", toml.getString("b"));
+    assertEquals("quote \"", toml.getString("c"));
+    assertEquals("\u00b1\t", toml.getString("d"));
+    assertEquals(1L, toml.getLong("e").longValue());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_invalid_escape_in_multiline_string() throws Exception {
+    new Toml().read("a = \"\"\"\\x\"\"\"");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_unterminated_multiline_string_at_end_of_document() throws Exception {
+    new Toml().read("a = \"\"\"");
+  }
+
+  @Test
+  public void should_count_lines_in_multiline_strings() throws Exception {
+    try {
+      new Toml().read("a = \"\"\"\\\n\n\n\"\"\"\nb = '''\n\n'''\nc = 1 x");
+      fail();
+    } catch (IllegalStateException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("line 8"));
+    }
+  }
 }
@@ -0,0 +1,53 @@
+package com.moandjiezana.toml;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+public class SwarTest {
+
+  private static final String TEXT = "# é comment ±\nkey = \"va\\\"lue\" # x\n'lit' = '''a\nb'''\nÿ£ end";
+
+  @Test
+  public void should_find_same_index_as_char_by_char() throws Exception {
+    byte[] utf8 = TEXT.getBytes("UTF-8");
+    byte[] padded = new byte[utf8.length + 5];
+    System.arraycopy(utf8, 0, padded, 3, utf8.length);
+    ByteBuffer buffer = ByteBuffer.wrap(padded);
+    buffer.position(3);
+    buffer.limit(3 + utf8.length);
+    TomlInput bytes = TomlInput.utf8(buffer);
+    TomlInput chars = TomlInput.of(new String(utf8, "ISO-8859-1"));
+
+    char[][] targets = { { '\n', '\n', '\n' }, { '"', '\\', '\n' }, { '\'', '\n', '\n' }, { '#', '#', '#' } };
+    for (char[] t : targets) {
+      for (int from = 0; from <= utf8.length + 1; from++) {
+        assertEquals(chars.indexOfAny(t[0], t[1], t[2], from), bytes.indexOfAny(t[0], t[1], t[2], from));
+        for (int end = from; end <= utf8.length; end += 7) {
+          assertEquals(chars.indexOfAny(t[0], t[1], t[2], from, end), bytes.indexOfAny(t[0], t[1], t[2], from, end));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void should_find_in_slices() throws Exception {
+    TomlInput slice = TomlInput.utf8(ByteBuffer.wrap(TEXT.getBytes("UTF-8"))).slice(2, 30);
+
+    assertEquals(13, slice.indexOf('\n', 0));
+    assertEquals(20, slice.indexOf('"', 15));
+    // a # past the end of the slice is not found
+    assertEquals(28, slice.indexOf('#', 15));
+  }
+
+  @Test
+  public void should_match_lowest_byte_only() throws Exception {
+    long word = ByteBuffer.wrap(new byte[] { 'a', '\n', '\n', 'b', 0, 1, '\n', (byte) 0x8a }).order(ByteOrder.LITTLE_ENDIAN).getLong(0);
+
+    assertEquals(1, Long.numberOfTrailingZeros(Swar.matches(word, Swar.pattern('\n'))) >>> 3);
+    assertEquals(0, Swar.matches(word, Swar.pattern('#')));
+  }
+}
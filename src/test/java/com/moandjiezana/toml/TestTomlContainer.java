@@ -5,7 +5,9 @@ import com.moandjiezana.toml.testutils.Utils;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.*;
 import java.util.*;
@@ -159,6 +161,27 @@ public class TestTomlContainer {
         }
     }
 
+    @Test()
+    public void testReadWithoutComments() throws Exception {
+        String toml = "#top comment of title\n" +
+                "title = \"TOML Example\" #right comment of title\n" +
+                "#top comment of database\n" +
+                "[database] #right comment of database\n" +
+                "  ports = [ 8001, 8002 ]\n" +
+                "[[networks]] #right comment of networks\n" +
+                "  name = \"Level 1\"\n" +
+                " ## last comment of this toml config";
+        Results results = TomlParser.run(TomlInput.of(toml), ParseOptions.DEFAULT.keepComments(false));
+        assertTrue(results.getLastContainer().getCommentMap().isEmpty());
+        assertNull(results.getLastComment());
+
+        Toml withoutComments = new Toml().keepComments(false).read(new StringReader(toml));
+        assertEquals(new Toml().read(new StringReader(toml)).toMap(), withoutComments.toMap());
+        StringWriter writer = new StringWriter();
+        withoutComments.Write(writer);
+        assertFalse(writer.toString().contains("#"));
+    }
+
     private InputStreamReader createReader(File tomlFile) throws UnsupportedEncodingException, FileNotFoundException {
         return new InputStreamReader(new FileInputStream(tomlFile), "UTF8");
     }
@@ -0,0 +1,204 @@
+package com.moandjiezana.toml;
+
+import static com.moandjiezana.toml.TomlEventReader.Event.ARRAY_END;
+import static com.moandjiezana.toml.TomlEventReader.Event.ARRAY_START;
+import static com.moandjiezana.toml.TomlEventReader.Event.COMMENT;
+import static com.moandjiezana.toml.TomlEventReader.Event.INLINE_TABLE_END;
+import static com.moandjiezana.toml.TomlEventReader.Event.INLINE_TABLE_START;
+import static com.moandjiezana.toml.TomlEventReader.Event.KEY;
+import static com.moandjiezana.toml.TomlEventReader.Event.TABLE_ARRAY_ELEMENT_START;
+import static com.moandjiezana.toml.TomlEventReader.Event.TABLE_START;
+import static com.moandjiezana.toml.TomlEventReader.Event.VALUE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TomlEventReaderTest {
+
+  @Test
+  public void should_read_events() throws Exception {
+    TomlEventReader reader = new TomlEventReader(new StringReader(
+        "# top\n"
+      + "a = 1 # one\n"
+      + "[b.c] # table\n"
+      + "d = [\"x\", [true]]\n"
+      + "[[e]]\n"
+      + "f = {g = 2.5, h = {}}\n"));
+
+    expect(reader, COMMENT, 1);
+    assertEquals("# top", reader.getComment());
+    expect(reader, KEY, 2);
+    assertEquals("a", reader.getKey());
+    expect(reader, VALUE, 2);
+    assertEquals(1L, reader.getValue());
+    expect(reader, COMMENT, 2);
+    assertEquals("# one", reader.getComment());
+    expect(reader, TABLE_START, 3);
+    assertEquals(Arrays.asList("b", "c"), reader.getPath());
+    expect(reader, COMMENT, 3);
+    assertEquals("# table", reader.getComment());
+    expect(reader, KEY, 4);
+    expect(reader, ARRAY_START, 4);
+    expect(reader, VALUE, 4);
+    assertEquals("x", reader.getValue());
+    expect(reader, ARRAY_START, 4);
+    expect(reader, VALUE, 4);
+    assertEquals(true, reader.getValue());
+    expect(reader, ARRAY_END, 4);
+    expect(reader, ARRAY_END, 4);
+    expect(reader, TABLE_ARRAY_ELEMENT_START, 5);
+    assertEquals(Arrays.asList("e"), reader.getPath());
+    expect(reader, KEY, 6);
+    assertEquals("f", reader.getKey());
+    expect(reader, INLINE_TABLE_START, 6);
+    expect(reader, KEY, 6);
+    assertEquals("g", reader.getKey());
+    expect(reader, VALUE, 6);
+    assertEquals(2.5, reader.getValue());
+    expect(reader, KEY, 6);
+    assertEquals("h", reader.getKey());
+    expect(reader, INLINE_TABLE_START, 6);
+    expect(reader, INLINE_TABLE_END, 6);
+    expect(reader, INLINE_TABLE_END, 6);
+    assertFalse(reader.hasNext());
+    reader.close();
+  }
+
+  @Test
+  public void should_read_null_value() throws Exception {
+    TomlEventReader reader = new TomlEventReader("a = null");
+
+    expect(reader, KEY, 1);
+    expect(reader, VALUE, 1);
+    assertNull(reader.getValue());
+    assertFalse(reader.hasNext());
+  }
+
+  @Test
+  public void should_read_same_values_as_toml() throws Exception {
+    for (String file : new String[] { "example.toml", "hard_example.toml", "example-v0.4.0.toml", "fruit_table_array.toml", "should_support_array_of_inline_tables.toml" }) {
+      Toml toml = new Toml().read(new InputStreamReader(getClass().getResourceAsStream(file), "UTF-8"));
+      TomlEventReader reader = new TomlEventReader(new InputStreamReader(getClass().getResourceAsStream(file), "UTF-8"));
+
+      assertEquals(file, toml.toMap(), toMap(reader));
+      reader.close();
+    }
+  }
+
+  @Test
+  public void should_read_byte_buffer() throws Exception {
+    TomlEventReader reader = new TomlEventReader(ByteBuffer.wrap("a = \"é\"".getBytes("UTF-8")));
+
+    expect(reader, KEY, 1);
+    expect(reader, VALUE, 1);
+    assertEquals("é", reader.getValue());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_text_after_value() throws Exception {
+    readAll(new TomlEventReader("a = 1 b"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_missing_value() throws Exception {
+    readAll(new TomlEventReader("a = \nb = 1"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_unterminated_array() throws Exception {
+    readAll(new TomlEventReader("a = [1, 2"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_invalid_table() throws Exception {
+    readAll(new TomlEventReader("[a"));
+  }
+
+  private static void expect(TomlEventReader reader, TomlEventReader.Event event, int line) {
+    assertEquals(event, reader.next());
+    assertEquals(event, reader.getEvent());
+    assertEquals(line, reader.getLine());
+  }
+
+  private static void readAll(TomlEventReader reader) {
+    while (reader.hasNext()) {
+      reader.next();
+    }
+  }
+
+  /**
+   * 用事件重新构建出和 {@link Toml#toMap()} 一样的结构
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> toMap(TomlEventReader reader) {
+    Map<String, Object> root = new LinkedHashMap<String, Object>();
+    Map<String, Object> table = root;
+    List<Object> containers = new ArrayList<Object>();
+    String key = null;
+    while (reader.hasNext()) {
+      switch (reader.next()) {
+        case TABLE_START:
+        case TABLE_ARRAY_ELEMENT_START:
+          table = root;
+          List<String> path = reader.getPath();
+          for (int i = 0; i < path.size(); i++) {
+            Object child = table.get(path.get(i));
+            boolean last = i == path.size() - 1;
+            if (last && reader.getEvent() == TABLE_ARRAY_ELEMENT_START) {
+              if (child == null) {
+                child = new ArrayList<Object>();
+                table.put(path.get(i), child);
+              }
+              Map<String, Object> element = new LinkedHashMap<String, Object>();
+              ((List<Object>) child).add(element);
+              child = element;
+            } else if (child == null) {
+              child = new LinkedHashMap<String, Object>();
+              table.put(path.get(i), child);
+            } else if (child instanceof List) {
+              List<Object> list = (List<Object>) child;
+              child = list.get(list.size() - 1);
+            }
+            table = (Map<String, Object>) child;
+          }
+          break;
+        case KEY:
+          key = reader.getKey();
+          break;
+        case VALUE:
+        case ARRAY_START:
+        case INLINE_TABLE_START:
+          Object value = reader.getEvent() == ARRAY_START ? new ArrayList<Object>()
+            : reader.getEvent() == INLINE_TABLE_START ? new LinkedHashMap<String, Object>() : reader.getValue();
+          Object parent = containers.isEmpty() ? table : containers.get(containers.size() - 1);
+          if (parent instanceof List) {
+            ((List<Object>) parent).add(value);
+          } else {
+            ((Map<String, Object>) parent).put(key, value);
+          }
+          if (reader.getEvent() != VALUE) {
+            containers.add(value);
+          }
+          break;
+        case ARRAY_END:
+        case INLINE_TABLE_END:
+          containers.remove(containers.size() - 1);
+          break;
+        default:
+          break;
+      }
+    }
+    return root;
+  }
+}
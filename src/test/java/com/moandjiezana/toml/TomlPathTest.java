@@ -0,0 +1,58 @@
+package com.moandjiezana.toml;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class TomlPathTest {
+
+  @Test
+  public void should_compile_segments() throws Exception {
+    TomlPath path = TomlPath.compile("a.\"b.c\".d[2].e");
+
+    assertArrayEquals(new String[] { "a", "\"b.c\"", "d", "e" }, path.names);
+    assertArrayEquals(new int[] { -1, -1, 2, -1 }, path.indexes);
+    assertEquals("a.\"b.c\".d.e", path.paths[0]);
+    assertEquals("d.e", path.paths[2]);
+  }
+
+  @Test
+  public void should_compile_single_key() throws Exception {
+    TomlPath path = TomlPath.compile("'a[1]'");
+
+    assertArrayEquals(new String[] { "'a[1]'" }, path.names);
+    assertArrayEquals(new int[] { -1 }, path.indexes);
+    assertArrayEquals(new String[] { "a", "b[x]" }, TomlPath.compile("a.b[x]").names);
+  }
+
+  @Test
+  public void should_reuse_cached_paths() throws Exception {
+    assertSame(TomlPath.of("a.b"), TomlPath.of("a.b"));
+  }
+
+  @Test
+  public void should_bound_cache() throws Exception {
+    for (int i = 0; i < TomlPath.CACHE_SIZE * 3; i++) {
+      TomlPath.of("key" + i);
+    }
+
+    assertTrue(TomlPath.CACHE.size() <= TomlPath.CACHE_SIZE);
+  }
+
+  @Test
+  public void should_get_values_by_path() throws Exception {
+    Toml toml = new Toml().read("[a]\nb = 1\n\"c.d\" = 'x'\n[[e]]\nf = [1, 2]\n[[e]]\nf = [3]");
+
+    assertEquals(1L, toml.getLong(TomlPath.of("a.b")).longValue());
+    assertEquals("x", toml.getString(TomlPath.of("a.c.d")));
+    assertEquals(Arrays.asList(3L), toml.getList(TomlPath.of("e[1].f")));
+    assertNull(toml.getList(TomlPath.of("e[2].f")));
+    assertTrue(toml.contains(TomlPath.of("e[0]")));
+  }
+}
@@ -1,15 +1,23 @@
 package com.moandjiezana.toml;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.Map;
 
 import org.junit.Test;
 
@@ -60,6 +68,91 @@ public class TomlReadTest {
     }
   }
 
+  @Test
+  public void should_read_byte_array() throws Exception {
+    Toml toml = new Toml().read("# 注释\nkey = \"中国\" # 注释\n[\"表\"]\nliteral = '路径\\\\é'\nn = 1".getBytes("UTF-8"));
+
+    assertEquals("中国", toml.getString("key"));
+    @SuppressWarnings("unchecked")
+    Map<String, Object> table = (Map<String, Object>) toml.toMap().get("表");
+    assertEquals("路径\\\\é", table.get("literal"));
+    assertEquals(1L, table.get("n"));
+  }
+
+  @Test
+  public void should_read_direct_byte_buffer_without_moving_position() throws Exception {
+    byte[] bytes = "skip[a]\nb = \"\\u00e9t\u00e9\"\nc = [1, 2]".getBytes("UTF-8");
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes);
+    buffer.flip();
+    buffer.position(4);
+
+    Toml toml = new Toml().read(buffer);
+
+    assertEquals("été", toml.getString("a.b"));
+    assertEquals(Arrays.asList(1L, 2L), toml.<Long>getList("a.c"));
+    assertEquals(4, buffer.position());
+  }
+
+  @Test
+  public void should_read_same_values_from_bytes_and_reader() throws Exception {
+    File file = new File(getClass().getResource("example.toml").getFile());
+    byte[] bytes = Files.readAllBytes(file.toPath());
+
+    assertEquals(new Toml().read(file).toMap(), new Toml().read(bytes).toMap());
+  }
+
+  @Test
+  public void should_read_path() throws Exception {
+    File file = new File(getClass().getResource("hard_example.toml").getFile());
+
+    assertEquals(new Toml().read(file).toMap(), new Toml().read(file.toPath()).toMap());
+  }
+
+  @Test
+  public void should_fail_on_missing_path() throws Exception {
+    try {
+      new Toml().read(new File("missing").toPath());
+      fail("Exception should have been thrown");
+    } catch (RuntimeException e) {
+      assertThat(e.getCause(), instanceOf(NoSuchFileException.class));
+    }
+  }
+
+  @Test
+  public void should_fail_on_invalid_bytes() throws Exception {
+    try {
+      new Toml().read("a = \"中".getBytes("UTF-8"));
+      fail("Exception should have been thrown");
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage(), containsString("a = \"中"));
+    }
+  }
+
+  @Test
+  public void should_read_reader_through_window_smaller_than_values() throws Exception {
+    for (String name : new String[] { "example.toml", "hard_example.toml", "example-v0.4.0.toml" }) {
+      File file = new File(getClass().getResource(name).getFile());
+      byte[] bytes = Files.readAllBytes(file.toPath());
+      String content = new String(bytes, "UTF-8").replace("\r\n", "\n");
+      Results expected = TomlParser.run(content.endsWith("\n") ? content : content + "\n");
+      Results streamed = TomlParser.run(TomlInput.stream(new InputStreamReader(new FileInputStream(file), "UTF-8"), 16));
+
+      assertEquals(name, expected.errors.toString(), streamed.errors.toString());
+      assertEquals(name, expected.getLastContainer().getValueMap(), streamed.getLastContainer().getValueMap());
+      assertEquals(name, expected.getLastComment(), streamed.getLastComment());
+    }
+  }
+
+  @Test
+  public void should_normalize_line_endings_when_reading_reader() throws Exception {
+    Toml toml = new Toml().read(new StringReader("a = \"\"\"\r\nx\r\ny\"\"\"\r\nb = 1\rc = 2"));
+
+    assertEquals("x\ny", toml.getString("a"));
+    assertEquals(1, toml.getLong("b").intValue());
+    assertEquals(2, toml.getLong("c").intValue());
+  }
+
   @Test
   public void should_read_toml_without_defaults() {
     Toml toml1 = new Toml().read("a = 1");
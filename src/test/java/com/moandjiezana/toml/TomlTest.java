@@ -3,6 +3,7 @@ package com.moandjiezana.toml;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -10,6 +11,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import org.hamcrest.Matchers;
@@ -99,4 +101,92 @@ public class TomlTest {
   public void should_fail_when_key_is_overwritten_by_another_key() {
     new Toml().read("[fruit]\ntype=\"apple\"\ntype=\"orange\"");
   }
+
+  @Test
+  public void should_read_null_value() throws Exception {
+    Map<String, Object> map = new Toml().read("a = null # comment\nc = 1").toMap();
+
+    assertTrue(map.containsKey("a"));
+    assertNull(map.get("a"));
+    assertEquals(1L, map.get("c"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_value_starting_with_null() throws Exception {
+    new Toml().read("a = nullx");
+  }
+
+  @Test
+  public void should_decode_values_when_first_accessed() throws Exception {
+    Container.Table table = TomlParser.run("a = 1_000\nb = \"x\"\nc = 'y'\nd = -1.5e2\ne = -9223372036854775808").getLastContainer();
+
+    assertThat(table.getTableValues().get("a"), Matchers.instanceOf(LazyValue.class));
+    assertThat(table.getTableValues().get("b"), Matchers.instanceOf(LazyValue.class));
+    assertThat(table.getTableValues().get("d"), Matchers.instanceOf(LazyValue.class));
+    // 可能超出 long 范围的整数在解析的时候检查
+    assertThat(table.getTableValues().get("e"), Matchers.instanceOf(Long.class));
+    assertEquals(1000L, table.get("a"));
+    assertEquals("x", table.get("b"));
+    assertEquals("y", table.get("c"));
+    assertEquals(-150.0, table.get("d"));
+    assertEquals(Long.MIN_VALUE, table.get("e"));
+    assertSame(table.get("b"), table.get("b"));
+    assertSame(table.get("a"), table.get("a"));
+  }
+
+  @Test
+  public void should_decode_dates_when_first_accessed() throws Exception {
+    Container.Table table = TomlParser.run("a = 1979-05-27T07:32:00Z\nb = 1979-05-27T00:32:00.5-07:00").getLastContainer();
+
+    assertThat(table.getTableValues().get("a"), Matchers.instanceOf(LazyValue.class));
+    assertThat(table.getTableValues().get("b"), Matchers.instanceOf(LazyValue.class));
+    assertEquals(new Date(296638320000L), table.get("a"));
+    assertEquals(new Date(296638320500L), table.get("b"));
+    assertSame(table.get("a"), table.get("a"));
+
+    Map<String, Object> map = new Toml().useJavaTime(true).read("a = 1979-05-27T07:32:00Z\nb = 1979-05-27").toMap();
+    assertEquals("1979-05-27T07:32Z", map.get("a").toString());
+    assertEquals("1979-05-27", map.get("b").toString());
+  }
+
+  @Test
+  public void should_leave_values_that_are_not_read_undecoded() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      sb.append("i").append(i).append(" = ").append(i).append('\n');
+      sb.append("f").append(i).append(" = ").append(i).append(".5\n");
+      sb.append("d").append(i).append(" = 2000-01-01T00:00:00Z\n");
+      sb.append("s").append(i).append(" = 's").append(i).append("'\n");
+    }
+    Container.Table table = TomlParser.run(sb.toString()).getLastContainer();
+
+    assertEquals(42L, table.get("i42"));
+    assertEquals(42.5, table.get("f42"));
+    int undecoded = 0;
+    for (Object value : table.getTableValues().values()) {
+      if (value instanceof LazyValue) {
+        undecoded++;
+      }
+    }
+    assertEquals(4000, undecoded);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_invalid_date_when_parsing() throws Exception {
+    new Toml().read("a = 2011-02-30T00:00:00Z");
+  }
+
+  @Test
+  public void should_decode_numbers_copied_from_bytes_when_first_accessed() throws Exception {
+    Container.Table table = TomlParser.run(TomlInput.utf8(ByteBuffer.wrap("a = 0.1\nb = 42".getBytes("UTF-8")))).getLastContainer();
+
+    assertThat(table.getTableValues().get("a"), Matchers.instanceOf(LazyValue.class));
+    assertEquals(0.1, table.get("a"));
+    assertEquals(42L, table.get("b"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void should_fail_on_invalid_escape_when_parsing() throws Exception {
+    new Toml().read("a = \"\\q\"");
+  }
 }